@@ -0,0 +1,63 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.ParserConfigurationException;
+import org.dita.index.configuration.IndexConfiguration;
+import org.dita.index.configuration.ParseException;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/** Synthetic benchmark input. */
+final class BenchmarkCorpus {
+
+  private static final int TERMS_PER_TOPIC = 10;
+
+  private BenchmarkCorpus() {}
+
+  /**
+   * Parse bundled index configuration.
+   *
+   * @param locale configuration locale, e.g. {@code zh_CN}
+   */
+  static IndexConfiguration configuration(final String locale)
+      throws IOException, SAXException, ParserConfigurationException, ParseException {
+    return CorpusGenerator.configuration(locale);
+  }
+
+  /**
+   * Create generator for merged map documents. Index terms are nested up to three levels, one in
+   * ten leaf terms has a see or see also reference, there is a range for every thousand terms, and
+   * every value is used twice on average.
+   *
+   * @param locale configuration locale to draw characters from
+   * @param terms number of index terms
+   */
+  static CorpusGenerator generator(final String locale, final int terms)
+      throws IOException, SAXException, ParserConfigurationException, ParseException {
+    return new CorpusGenerator()
+        .locales(locale)
+        .topics(Math.max(1, terms / TERMS_PER_TOPIC))
+        .terms(terms)
+        .depth(3)
+        .see(0.05, 0.05)
+        .ranges(terms / 1000)
+        .vocabulary(Math.max(1, terms / 2));
+  }
+
+  /** Read index entries from a merged map document. */
+  static List<IndexEntry> entries(final Document document) {
+    final IndexPreprocessor preprocessor = new IndexPreprocessor("prefix", "namespace", false);
+    preprocessor.setLogger(new DummyLogger());
+    return new ArrayList<>(preprocessor.process(document).indexEntries);
+  }
+}
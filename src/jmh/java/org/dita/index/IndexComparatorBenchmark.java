@@ -0,0 +1,58 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Comparison of index entries with a locale specific collator. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class IndexComparatorBenchmark {
+
+  private static final int ENTRIES = 1024;
+
+  @Param({"en", "ja", "th", "zh_CN"})
+  public String locale;
+
+  private IndexComparator comparator;
+  private IndexEntry[] entries;
+  private int position;
+
+  @Setup
+  public void setup() throws Exception {
+    comparator = new IndexComparator(Locale.forLanguageTag(locale.replace('_', '-')));
+    final List<IndexEntry> list =
+        BenchmarkCorpus.entries(
+            BenchmarkCorpus.generator(locale, ENTRIES).depth(1).ranges(0).vocabulary(0).document());
+    entries = list.toArray(new IndexEntry[0]);
+  }
+
+  @Benchmark
+  public int compare() {
+    position = (position + 1) & (ENTRIES - 1);
+    return comparator.compare(entries[position], entries[(position * 7 + 1) & (ENTRIES - 1)]);
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merging of child entries with {@link IndexEntry#addChild(IndexEntry)}. Half of the children
+ * have a value that has already been added and are merged into the existing child. Merging
+ * modifies the entries, so entries are created in the benchmark method.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class IndexEntryMergeBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int children;
+
+  private String[] values;
+
+  @Setup
+  public void setup() {
+    final Random random = new Random(42);
+    values = new String[children];
+    for (int i = 0; i < children; i++) {
+      values[i] = "value " + random.nextInt(Math.max(1, children / 2));
+    }
+  }
+
+  @Benchmark
+  public IndexEntry addChild() {
+    final IndexEntry parent = new IndexEntryImpl("parent", null, "parent", null);
+    for (final String value : values) {
+      final IndexEntry child = new IndexEntryImpl(value, null, value, null);
+      child.addRefID(value);
+      child.addChild(new IndexEntryImpl("sub", null, "sub", null));
+      parent.addChild(child);
+    }
+    return parent;
+  }
+}
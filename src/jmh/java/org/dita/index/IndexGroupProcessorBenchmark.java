@@ -0,0 +1,70 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.dita.index.configuration.IndexConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Grouping of index entries. Grouping merges entries with the same value into each other, so
+ * entries are read again before every invocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexGroupProcessorBenchmark {
+
+  @Param({"en", "ja", "th", "zh_CN"})
+  public String locale;
+
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int terms;
+
+  private IndexConfiguration configuration;
+  private Locale javaLocale;
+  private Document document;
+  private List<IndexEntry> entries;
+
+  @Setup
+  public void setup() throws Exception {
+    configuration = BenchmarkCorpus.configuration(locale);
+    javaLocale = Locale.forLanguageTag(locale.replace('_', '-'));
+    document = BenchmarkCorpus.generator(locale, terms).document();
+  }
+
+  @Setup(Level.Invocation)
+  public void readEntries() {
+    entries = BenchmarkCorpus.entries(document);
+  }
+
+  @Benchmark
+  public IndexGroupProcessResult process() {
+    final IndexGroupProcessor processor = new IndexGroupProcessor();
+    processor.setLogger(new DummyLogger());
+    return processor.process(entries, configuration, javaLocale);
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/** Index term extraction from a DOM document. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexPreprocessorBenchmark {
+
+  @Param({"en", "ja", "th", "zh_CN"})
+  public String locale;
+
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int terms;
+
+  private Document document;
+
+  @Setup
+  public void setup() throws Exception {
+    document = BenchmarkCorpus.generator(locale, terms).document();
+  }
+
+  @Benchmark
+  public IndexPreprocessResult process() {
+    final IndexPreprocessor preprocessor = new IndexPreprocessor("prefix", "namespace", false);
+    preprocessor.setLogger(new DummyLogger());
+    return preprocessor.process(document);
+  }
+}
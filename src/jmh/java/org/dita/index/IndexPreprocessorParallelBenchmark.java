@@ -0,0 +1,66 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Index term extraction from a DOM document with index terms of top-level topics read in parallel.
+ * Compare with one thread to see the speedup of parallel extraction.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexPreprocessorParallelBenchmark {
+
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  @Param({"100000"})
+  public int terms;
+
+  private Document document;
+  private ForkJoinPool pool;
+
+  @Setup
+  public void setup() throws Exception {
+    document = BenchmarkCorpus.generator("en", terms).document();
+    pool = new ForkJoinPool(threads);
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Benchmark
+  public IndexPreprocessResult process() {
+    final IndexPreprocessor preprocessor = new IndexPreprocessor("prefix", "namespace", false);
+    preprocessor.setLogger(new DummyLogger());
+    preprocessor.setExtractionPool(pool);
+    return preprocessor.process(document);
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Whitespace normalization of index text compared to regular expression replacement. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class WhitespaceNormalizerBenchmark {
+
+  @Param({"normalized", "padded", "multiline"})
+  public String input;
+
+  private String value;
+
+  @Setup
+  public void setup() {
+    switch (input) {
+      case "normalized":
+        value = "configuration file format";
+        break;
+      case "padded":
+        value = " configuration file format\n";
+        break;
+      case "multiline":
+        value = "\n      configuration\n      file  format\n    ";
+        break;
+      default:
+        throw new IllegalArgumentException(input);
+    }
+  }
+
+  @Benchmark
+  public String normalizeSpace() {
+    return WhitespaceNormalizer.normalizeSpace(value);
+  }
+
+  @Benchmark
+  public String regularExpression() {
+    return value.replaceAll("[\\s\\n]+", " ").trim();
+  }
+
+  @Benchmark
+  public String stripTrailing() {
+    return WhitespaceNormalizer.stripTrailing(value);
+  }
+
+  @Benchmark
+  public String stripTrailingRegularExpression() {
+    return value.replaceAll("[\\s\\n]+$", "");
+  }
+}
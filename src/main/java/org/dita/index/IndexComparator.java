@@ -31,12 +31,18 @@ See the accompanying LICENSE file for applicable license.
 
 package org.dita.index;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Locale;
 
 class IndexComparator implements Comparator<IndexEntry> {
 
   private final IndexCollator collator;
+  /** Number of collation key comparisons made in {@link #sort(Collection)}. */
+  private long keyComparisons;
 
   public IndexComparator(final Locale locale) {
     this.collator = new IndexCollator(locale);
@@ -48,6 +54,39 @@ class IndexComparator implements Comparator<IndexEntry> {
     return collator.compare(value1, value2);
   }
 
+  /**
+   * Sort index entries. Collation key of each entry is computed once, entries are sorted by
+   * comparing the keys instead of comparing strings with the collator. Order is the same as when
+   * sorting with this comparator, entries with equal keys keep their order.
+   *
+   * @param entries index entries, not modified
+   * @return new list of index entries in sort order
+   */
+  List<IndexEntry> sort(final Collection<IndexEntry> entries) {
+    final SortKey[] keys = new SortKey[entries.size()];
+    int i = 0;
+    for (final IndexEntry entry : entries) {
+      keys[i++] = new SortKey(collator.getCollationKey(getSortString(entry)), entry);
+    }
+    Arrays.sort(keys, this::compareKeys);
+    final List<IndexEntry> res = new ArrayList<>(keys.length);
+    for (final SortKey key : keys) {
+      res.add(key.entry);
+    }
+    return res;
+  }
+
+  /** @return number of collator and collation key comparisons made with this comparator */
+  long getComparisons() {
+    return collator.getComparisons() + keyComparisons;
+  }
+
+  @SuppressWarnings("unchecked")
+  private int compareKeys(final SortKey key1, final SortKey key2) {
+    keyComparisons++;
+    return key1.key.compareTo(key2.key);
+  }
+
   private String getSortString(final IndexEntry entry) {
     if (entry.getSortString() != null) {
       return entry.getSortString();
@@ -55,4 +94,15 @@ class IndexComparator implements Comparator<IndexEntry> {
       return entry.getValue();
     }
   }
+
+  /** Index entry with its collation key. */
+  private static final class SortKey {
+    private final Comparable key;
+    private final IndexEntry entry;
+
+    SortKey(final Comparable key, final IndexEntry entry) {
+      this.key = key;
+      this.entry = entry;
+    }
+  }
 }
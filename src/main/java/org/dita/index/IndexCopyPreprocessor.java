@@ -0,0 +1,331 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static javax.xml.XMLConstants.NULL_NS_URI;
+import static org.dita.dost.util.Constants.ATTRIBUTE_NAME_CLASS;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.index.configuration.IndexConfiguration;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Copying index preprocessor. The input is read twice: the first pass parses the input and
+ * serializes pre-processed index entries and index groups, the second pass copies input markup to
+ * output as is and only writes the serialized index entries in place of index terms. Content
+ * without index terms is never parsed into events for output or re-serialized.
+ *
+ * <p>Input with a document type declaration, or in an encoding other than UTF-8 or UTF-16, is not
+ * supported and must be processed with {@link IndexStreamPreprocessor}.
+ */
+public final class IndexCopyPreprocessor {
+
+  private final String prefix;
+  private final String namespaceUrl;
+  private final boolean includeDraft;
+  private final IndexPreprocessor indexPreprocessor;
+  private XMLStreamWriter indexGroupsWriter;
+  private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+  private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+  /**
+   * Create new copying index preprocessor.
+   *
+   * @param prefix index prefix
+   * @param namespaceUrl index element namespace URI
+   * @param includeDraft include index terms in draft content
+   */
+  public IndexCopyPreprocessor(
+      final String prefix, final String namespaceUrl, final boolean includeDraft) {
+    this.prefix = prefix;
+    this.namespaceUrl = namespaceUrl;
+    this.includeDraft = includeDraft;
+    indexPreprocessor = new IndexPreprocessor(prefix, namespaceUrl, includeDraft);
+  }
+
+  public void setLogger(final DITAOTLogger logger) {
+    indexPreprocessor.setLogger(logger);
+  }
+
+  public void setStatistics(final IndexStatistics statistics) {
+    indexPreprocessor.setStatistics(statistics);
+  }
+
+  /**
+   * Set generator for index IDs of refIDs.
+   *
+   * @param indexIdGenerator index ID generator
+   */
+  void setIndexIdGenerator(final IndexIdGenerator indexIdGenerator) {
+    indexPreprocessor.setIndexIdGenerator(indexIdGenerator);
+  }
+
+  /**
+   * Set writer for index groups. Index groups are written to it instead of appending them to the
+   * root element of output.
+   *
+   * @param indexGroupsWriter index groups writer, {@code null} to append index groups to output
+   */
+  public void setIndexGroupsWriter(final XMLStreamWriter indexGroupsWriter) {
+    this.indexGroupsWriter = indexGroupsWriter;
+  }
+
+  /**
+   * Process index terms. Copies input to output, replaces index terms with pre-processed index
+   * entries and appends index groups to the end of the root element, or writes them to the index
+   * groups writer if set. Output is written in the input encoding.
+   *
+   * @param input input file
+   * @param output output file, not written if input is not supported
+   * @param configuration index configuration
+   * @param locale locale used to sort and group index entries
+   * @return read index terms and uncategorized index entries, or {@code null} if input is not
+   *     supported
+   */
+  IndexPreprocessResult process(
+      final File input,
+      final File output,
+      final IndexConfiguration configuration,
+      final Locale locale)
+      throws IOException, XMLStreamException {
+    final List<IndexEntry> indexes = new ArrayList<>();
+    final Scan scan;
+    try (InputStream in = new BufferedInputStream(new FileInputStream(input))) {
+      scan = scan(input.toURI().toString(), in, configuration, locale, indexes);
+    }
+    if (scan == null) {
+      return null;
+    }
+    try (Reader in = new InputStreamReader(new FileInputStream(input), scan.charset);
+        Writer out =
+            new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(output), scan.charset))) {
+      final RawMarkupCopier copier = new RawMarkupCopier(in, out);
+      copier.copy(
+          scan.elements.stream().mapToInt(Integer::intValue).toArray(),
+          scan.replacements.toArray(new String[0]),
+          scan.rootNamespaceDeclared ? "" : " xmlns:" + prefix + "=\"" + namespaceUrl + "\"",
+          scan.indexGroups);
+    }
+    return new IndexPreprocessResult(null, indexes, scan.uncategorizedEntries);
+  }
+
+  /**
+   * Parse input and serialize index entries and index groups.
+   *
+   * @return scan results, or {@code null} if input is not supported
+   */
+  private Scan scan(
+      final String systemId,
+      final InputStream in,
+      final IndexConfiguration configuration,
+      final Locale locale,
+      final List<IndexEntry> indexes)
+      throws XMLStreamException {
+    final XMLStreamReader reader = inputFactory.createXMLStreamReader(systemId, in);
+    try {
+      final Charset charset = getCharset(reader.getEncoding());
+      if (charset == null) {
+        return null;
+      }
+      final Scan scan = new Scan(charset);
+      final Document document = IndexPreprocessor.newDocument();
+      int element = 0;
+      int depth = 0;
+      int excludedDraftDepth = -1;
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.DTD:
+            return null;
+          case XMLStreamConstants.START_ELEMENT:
+            final String cls = reader.getAttributeValue(NULL_NS_URI, ATTRIBUTE_NAME_CLASS);
+            if (depth > 0
+                && excludedDraftDepth == -1
+                && IndexPreprocessor.isDitaIndexElement(cls)) {
+              final String defaultNamespace = reader.getNamespaceContext().getNamespaceURI("");
+              final Element indexElement = XMLStreamUtils.readElement(reader, document);
+              scan.elements.add(element);
+              final List<Node> nodes =
+                  indexPreprocessor.processIndexNode(indexElement, document, indexes::add);
+              scan.replacements.add(
+                  serialize(
+                      writer -> {
+                        for (final Node node : nodes) {
+                          XMLStreamUtils.writeNode(node, writer);
+                        }
+                      },
+                      defaultNamespace));
+              element += 1 + indexElement.getElementsByTagName("*").getLength();
+              break;
+            }
+            if (depth == 0) {
+              scan.rootNamespaceDeclared =
+                  namespaceUrl.equals(reader.getNamespaceContext().getNamespaceURI(prefix));
+            }
+            element++;
+            depth++;
+            if (!includeDraft
+                && excludedDraftDepth == -1
+                && IndexPreprocessor.isDraftElement(cls)) {
+              excludedDraftDepth = depth;
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if (depth == excludedDraftDepth) {
+              excludedDraftDepth = -1;
+            }
+            if (depth == 1) {
+              final IndexGroupProcessResult groups =
+                  indexPreprocessor.groupIndexEntries(indexes, configuration, locale);
+              scan.uncategorizedEntries = groups.uncategorizedEntries;
+              if (indexGroupsWriter != null) {
+                indexPreprocessor.writeIndexGroups(groups.indexGroups, locale, indexGroupsWriter);
+              } else {
+                scan.indexGroups =
+                    serialize(
+                        writer ->
+                            indexPreprocessor.writeIndexGroups(groups.indexGroups, locale, writer),
+                        reader.getNamespaceContext().getNamespaceURI(""));
+              }
+            }
+            depth--;
+            break;
+          default:
+            break;
+        }
+      }
+      return scan;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /** Serialize content as if it was written inside the root element of the output. */
+  private String serialize(final Content content, final String defaultNamespace)
+      throws XMLStreamException {
+    final StringWriter buf = new StringWriter();
+    final XMLStreamWriter writer = outputFactory.createXMLStreamWriter(buf);
+    writer.setNamespaceContext(new OutputNamespaceContext(defaultNamespace));
+    content.write(writer);
+    // close pending empty element
+    writer.writeCharacters("");
+    writer.flush();
+    return buf.toString();
+  }
+
+  private static Charset getCharset(final String encoding) {
+    if (encoding == null) {
+      return StandardCharsets.UTF_8;
+    }
+    final Charset charset;
+    try {
+      charset = Charset.forName(encoding);
+    } catch (final IllegalCharsetNameException | UnsupportedCharsetException e) {
+      return null;
+    }
+    if (charset.equals(StandardCharsets.UTF_8)
+        || charset.equals(StandardCharsets.UTF_16)
+        || charset.equals(StandardCharsets.UTF_16BE)
+        || charset.equals(StandardCharsets.UTF_16LE)) {
+      return charset;
+    }
+    return null;
+  }
+
+  /** Content written by {@link #serialize(Content, String)}. */
+  @FunctionalInterface
+  private interface Content {
+    void write(XMLStreamWriter writer) throws XMLStreamException;
+  }
+
+  /** Results of the parsing pass. */
+  private static final class Scan {
+    final Charset charset;
+    /** Document order numbers of index term elements. */
+    final List<Integer> elements = new ArrayList<>();
+    /** Serialized index entries for each index term element. */
+    final List<String> replacements = new ArrayList<>();
+    /** Root element already binds index prefix to index namespace. */
+    boolean rootNamespaceDeclared;
+    /** Serialized index groups. */
+    String indexGroups = "";
+    /** Index entries that did not belong to any index group. */
+    Collection<IndexEntry> uncategorizedEntries = Collections.emptyList();
+
+    Scan(final Charset charset) {
+      this.charset = charset;
+    }
+  }
+
+  /** Namespace bindings in scope in the output where serialized content is written. */
+  private final class OutputNamespaceContext implements NamespaceContext {
+    private final String defaultNamespace;
+
+    OutputNamespaceContext(final String defaultNamespace) {
+      this.defaultNamespace = defaultNamespace == null ? NULL_NS_URI : defaultNamespace;
+    }
+
+    @Override
+    public String getNamespaceURI(final String nsPrefix) {
+      if (nsPrefix.equals(prefix)) {
+        return namespaceUrl;
+      } else if (nsPrefix.isEmpty()) {
+        return defaultNamespace;
+      }
+      return null;
+    }
+
+    @Override
+    public String getPrefix(final String namespaceURI) {
+      if (namespaceURI.equals(namespaceUrl)) {
+        return prefix;
+      } else if (namespaceURI.equals(defaultNamespace)) {
+        return "";
+      }
+      return null;
+    }
+
+    @Override
+    public Iterator<String> getPrefixes(final String namespaceURI) {
+      final String res = getPrefix(namespaceURI);
+      return res != null ? Collections.singletonList(res).iterator() : Collections.emptyIterator();
+    }
+  }
+}
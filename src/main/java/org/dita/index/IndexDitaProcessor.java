@@ -34,6 +34,7 @@ package org.dita.index;
 import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.util.XMLUtils.toList;
 import static org.dita.index.IndexPreprocessor.VALUE_SEPARATOR;
+import static org.dita.index.WhitespaceNormalizer.normalizeSpace;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
@@ -55,8 +56,22 @@ public final class IndexDitaProcessor {
   private static final String SORT_START = "[";
   private static final String SORT_END = "]";
 
+  private final SymbolTable symbols;
   private DITAOTLogger logger;
 
+  public IndexDitaProcessor() {
+    this(new SymbolTable());
+  }
+
+  /**
+   * Create new DITA index term processor.
+   *
+   * @param symbols symbol table to store index values and refIDs in
+   */
+  IndexDitaProcessor(final SymbolTable symbols) {
+    this.symbols = symbols;
+  }
+
   public void setLogger(final DITAOTLogger logger) {
     this.logger = logger;
   }
@@ -69,6 +84,19 @@ public final class IndexDitaProcessor {
    * @return index entries
    */
   public List<IndexEntry> processIndexDitaNode(final Node node, final String parentValue) {
+    return processIndexDitaNode(node, parentValue, symbols);
+  }
+
+  /**
+   * Read index terms from source XML.
+   *
+   * @param node source indexterm element
+   * @param parentValue parent value
+   * @param symbols symbol table to store index values and refIDs in
+   * @return index entries
+   */
+  List<IndexEntry> processIndexDitaNode(
+      final Node node, final String parentValue, final SymbolTable symbols) {
     final NodeList childNodes = node.getChildNodes();
     final StringBuilder textValueBuffer = new StringBuilder();
     final List<Node> contents = new ArrayList<>();
@@ -91,10 +119,10 @@ public final class IndexDitaProcessor {
           break;
         case Node.ELEMENT_NODE:
           if (TOPIC_INDEXTERM.matches(child)) {
-            final String currentTextValue = normalizeTextValue(textValueBuffer.toString());
+            final String currentTextValue = normalizeSpace(textValueBuffer.toString());
             final String currentRefId =
                 currentTextValue.isEmpty() ? "" : (currentTextValue + VALUE_SEPARATOR);
-            childEntrys.addAll(processIndexDitaNode(child, parentValue + currentRefId));
+            childEntrys.addAll(processIndexDitaNode(child, parentValue + currentRefId, symbols));
           } else if (INDEXING_D_INDEX_SORT_AS.matches(child)) {
             final List<Node> children = toList(child.getChildNodes());
             for (final Node sortChildNode : children) {
@@ -106,9 +134,9 @@ public final class IndexDitaProcessor {
               }
             }
           } else if (INDEXING_D_INDEX_SEE.matches(child)) {
-            seeEntry.addAll(processIndexDitaNode(child, ""));
+            seeEntry.addAll(processIndexDitaNode(child, "", symbols));
           } else if (INDEXING_D_INDEX_SEE_ALSO.matches(child)) {
-            seeAlsoEntry.addAll(processIndexDitaNode(child, ""));
+            seeAlsoEntry.addAll(processIndexDitaNode(child, "", symbols));
           } else if (child.getNodeType() == Node.ELEMENT_NODE) {
             contents.add(child);
             textValueBuffer.append(XMLUtils.getStringValue((Element) child));
@@ -117,7 +145,7 @@ public final class IndexDitaProcessor {
       }
     }
     /*
-    if (normalizeTextValue(textValueBuffer.toString()).length() == 0) {
+    if (normalizeSpace(textValueBuffer.toString()).isEmpty()) {
         if (startRange) {
             textValueBuffer.append(node.getAttributes().getNamedItem(elIndexRangeStartName).getNodeValue());
         } else if (endRange) {
@@ -125,7 +153,7 @@ public final class IndexDitaProcessor {
         }
     }
      */
-    String textValue = normalizeTextValue(textValueBuffer.toString());
+    String textValue = normalizeSpace(textValueBuffer.toString());
     String sortString = sortStringBuffer.toString();
     if (textValue.contains(SORT_START)
         && textValue.contains(SORT_END)
@@ -154,7 +182,7 @@ public final class IndexDitaProcessor {
 
     final IndexEntry result =
         new IndexEntryImpl(
-            textValue, sortString.isEmpty() ? null : sortString, textValue, contents);
+            symbols, textValue, sortString.isEmpty() ? null : sortString, textValue, contents);
     if (!result.getValue().isEmpty() || endRange || startRange) {
       result.setStartRange(startRange);
       result.setEndsRange(endRange);
@@ -163,7 +191,7 @@ public final class IndexDitaProcessor {
       } else if (endRange) {
         result.addRefID(node.getAttributes().getNamedItem(ATTR_END).getNodeValue());
       } else {
-        result.addRefID(normalizeTextValue(parentValue + textValue + VALUE_SEPARATOR));
+        result.addRefID(normalizeSpace(parentValue + textValue + VALUE_SEPARATOR));
       }
       if (!seeEntry.isEmpty()) {
         for (final IndexEntry seeIndexEntry : seeEntry) {
@@ -197,14 +225,4 @@ public final class IndexDitaProcessor {
     }
     return stripFormatting(value.substring(0, ltPos) + value.substring(gtPos + 1));
   }
-
-  @VisibleForTesting
-  static String normalizeTextValue(final String string) {
-    if (null != string && !string.isEmpty()) {
-      String res = string.replaceAll("[\\s\\n]+", " ").trim();
-      res = res.replaceAll("[\\s]+$", ""); // replace in the end of string
-      return res;
-    }
-    return string;
-  }
 }
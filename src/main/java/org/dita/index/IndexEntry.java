@@ -31,6 +31,7 @@ See the accompanying LICENSE file for applicable license.
 
 package org.dita.index;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import org.w3c.dom.Node;
@@ -76,6 +77,15 @@ public interface IndexEntry {
   /** @return child entries of this entry */
   List<IndexEntry> getChildIndexEntries();
 
+  /**
+   * Get child entries without copying them. Defaults to {@link #getChildIndexEntries()}.
+   *
+   * @return read-only view of child entries, empty if there are none
+   */
+  default List<IndexEntry> children() {
+    return getChildIndexEntries();
+  }
+
   /**
    * @return if this entry starts range<br>
    *     <code>
@@ -172,4 +182,24 @@ public interface IndexEntry {
   List<IndexEntry> getSeeChildIndexEntries();
 
   List<IndexEntry> getSeeAlsoChildIndexEntries();
+
+  /**
+   * Get see entries without copying them. Defaults to {@link #getSeeChildIndexEntries()}.
+   *
+   * @return read-only view of see entries, empty if there are none
+   */
+  default List<IndexEntry> seeChildren() {
+    final List<IndexEntry> entries = getSeeChildIndexEntries();
+    return entries != null ? entries : Collections.emptyList();
+  }
+
+  /**
+   * Get see also entries without copying them. Defaults to {@link #getSeeAlsoChildIndexEntries()}.
+   *
+   * @return read-only view of see also entries, empty if there are none
+   */
+  default List<IndexEntry> seeAlsoChildren() {
+    final List<IndexEntry> entries = getSeeAlsoChildIndexEntries();
+    return entries != null ? entries : Collections.emptyList();
+  }
 }
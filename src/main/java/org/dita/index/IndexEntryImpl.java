@@ -39,21 +39,31 @@ import org.w3c.dom.Node;
 /** Mutable index entry. */
 public class IndexEntryImpl implements IndexEntry {
 
+  private static final int[] NO_REF_IDS = new int[0];
+  private static final int FLAG_START_RANGE = 1;
+  private static final int FLAG_END_RANGE = 1 << 1;
+  private static final int FLAG_NO_PAGE = 1 << 2;
+  private static final int FLAG_SINGLE_PAGE = 1 << 3;
+
   private final String value;
   private final String formattedString;
   private final List<Node> contents;
   private String sortString;
 
-  private final Map<String, IndexEntry> childs = new HashMap<>();
-  private final Map<String, IndexEntry> seeChilds = new HashMap<>();
-  private final Map<String, IndexEntry> seeAlsoChilds = new HashMap<>();
+  /** Child entries, {@code null} until the first child is added. */
+  private Children childs;
+
+  private Children seeChilds;
+  private Children seeAlsoChilds;
+
+  /** Range and page number flags. */
+  private byte flags;
 
-  private boolean startRange = false;
-  private boolean endsRange = false;
-  private boolean suppressesThePageNumber = false;
-  private boolean restoresPageNumber = false;
+  private final SymbolTable symbols;
+  /** Symbol IDs of refIDs in insertion order. */
+  private int[] refIDs = NO_REF_IDS;
 
-  private final Set<String> refIDs = new HashSet<>();
+  private int refIDCount;
 
   /**
    * Index entry constructor.
@@ -68,15 +78,65 @@ public class IndexEntryImpl implements IndexEntry {
       final String sortString,
       final String formattedString,
       final List<Node> contents) {
-    this.value = value;
+    this(new SymbolTable(), value, sortString, formattedString, contents);
+  }
+
+  /**
+   * Index entry constructor.
+   *
+   * @param symbols symbol table to store value and refIDs in
+   * @param value string value
+   * @param sortString sort-as value
+   * @param formattedString formatter string value
+   * @param contents markup value, may be {@code null}
+   */
+  IndexEntryImpl(
+      final SymbolTable symbols,
+      final String value,
+      final String sortString,
+      final String formattedString,
+      final List<Node> contents) {
+    this.symbols = symbols;
+    this.value = symbols.intern(value);
     this.sortString = sortString;
-    this.formattedString = formattedString;
+    this.formattedString =
+        Objects.equals(formattedString, value) ? this.value : symbols.intern(formattedString);
     this.contents = contents;
   }
 
+  /**
+   * Get refIDs. RefIDs are resolved from the symbol table when the returned set is iterated.
+   *
+   * @return unmodifiable view of refIDs in insertion order
+   */
   @Override
   public Set<String> getRefIDs() {
-    return refIDs;
+    return new AbstractSet<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return new Iterator<String>() {
+          private int i;
+
+          @Override
+          public boolean hasNext() {
+            return i < refIDCount;
+          }
+
+          @Override
+          public String next() {
+            if (i >= refIDCount) {
+              throw new NoSuchElementException();
+            }
+            return symbols.get(refIDs[i++]);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return refIDCount;
+      }
+    };
   }
 
   @Override
@@ -101,122 +161,80 @@ public class IndexEntryImpl implements IndexEntry {
 
   @Override
   public List<IndexEntry> getChildIndexEntries() {
-    return childs.isEmpty() ? emptyList() : new ArrayList(childs.values());
+    return childs == null ? emptyList() : new ArrayList<>(childs);
+  }
+
+  @Override
+  public List<IndexEntry> children() {
+    return childs == null ? emptyList() : childs;
   }
 
   @Override
   public boolean isStartingRange() {
-    return startRange;
+    return (flags & FLAG_START_RANGE) != 0;
   }
 
   @Override
   public boolean isEndingRange() {
-    return endsRange;
+    return (flags & FLAG_END_RANGE) != 0;
   }
 
   @Override
   public boolean isSuppressesThePageNumber() {
-    return suppressesThePageNumber;
+    return (flags & FLAG_NO_PAGE) != 0;
   }
 
   @Override
   public boolean isRestoresPageNumber() {
-    return restoresPageNumber;
+    return (flags & FLAG_SINGLE_PAGE) != 0;
   }
 
   @Override
   public void addRefID(final String id) {
-    refIDs.add(id);
+    final int symbol = symbols.id(id);
+    // refID sets are small, a linear scan is cheaper than a hash set
+    for (int i = 0; i < refIDCount; i++) {
+      if (refIDs[i] == symbol) {
+        return;
+      }
+    }
+    if (refIDCount == refIDs.length) {
+      refIDs = Arrays.copyOf(refIDs, Math.max(2, refIDCount * 2));
+    }
+    refIDs[refIDCount++] = symbol;
   }
 
   @Override
   public void addSeeChild(final IndexEntry entry) {
-    final String entryValue = entry.getValue();
-    if (!seeChilds.containsKey(entryValue)) {
-      seeChilds.put(entryValue, entry);
-      return;
-    }
-    // The index with same value already exists
-    // Add seeChilds of given entry to existing entry
-    final IndexEntry existingEntry = seeChilds.get(entryValue);
-
-    final List<IndexEntry> childIndexEntries = entry.getChildIndexEntries();
-    for (final IndexEntry childIndexEntry : childIndexEntries) {
-      existingEntry.addChild(childIndexEntry);
-    }
-    // supress some attributes of given entry to the existing one
-    if (entry.isRestoresPageNumber()) {
-      existingEntry.setRestoresPageNumber(true);
-    }
-    if (!entry.isSuppressesThePageNumber()) {
-      existingEntry.setSuppressesThePageNumber(false);
-    }
-    if (entry.isStartingRange()) {
-      existingEntry.setStartRange(true);
-    }
-    if (entry.getSortString() != null) {
-      existingEntry.setSortString(entry.getSortString());
-    }
+    seeChilds = insert(seeChilds, entry);
   }
 
   @Override
   public void addSeeAlsoChild(final IndexEntry entry) {
-    final String entryValue = entry.getValue();
-    if (!seeAlsoChilds.containsKey(entryValue)) {
-      seeAlsoChilds.put(entryValue, entry);
-      return;
-    }
-    // The index with same value already exists
-    // Add seeAlsoChilds of given entry to existing entry
-    final IndexEntry existingEntry = seeAlsoChilds.get(entryValue);
-
-    final Collection<IndexEntry> childIndexEntries = entry.getChildIndexEntries();
-    for (final IndexEntry childIndexEntry : childIndexEntries) {
-      existingEntry.addChild(childIndexEntry);
-    }
-    // supress some attributes of given entry to the existing one
-    if (entry.isRestoresPageNumber()) {
-      existingEntry.setRestoresPageNumber(true);
-    }
-    if (!entry.isSuppressesThePageNumber()) {
-      existingEntry.setSuppressesThePageNumber(false);
-    }
-    if (entry.isStartingRange()) {
-      existingEntry.setStartRange(true);
-    }
-    if (entry.getSortString() != null) {
-      existingEntry.setSortString(entry.getSortString());
-    }
+    seeAlsoChilds = insert(seeAlsoChilds, entry);
   }
 
   @Override
   public void addChild(final IndexEntry entry) {
-    final String entryValue = entry.getValue();
-    if (!childs.containsKey(entryValue)) {
-      childs.put(entryValue, entry);
-      return;
-    }
-    // The index with same value already exists
-    // Add childs of given entry to existing entry
-    final IndexEntry existingEntry = childs.get(entryValue);
+    childs = insert(childs, entry);
+  }
 
-    final Collection<IndexEntry> childIndexEntries = entry.getChildIndexEntries();
-    for (final IndexEntry childIndexEntry : childIndexEntries) {
-      existingEntry.addChild(childIndexEntry);
-    }
-    // supress some attributes of given entry to the existing one
-    if (entry.isRestoresPageNumber()) {
-      existingEntry.setRestoresPageNumber(true);
-    }
-    if (!entry.isSuppressesThePageNumber()) {
-      existingEntry.setSuppressesThePageNumber(false);
-    }
-    if (entry.isStartingRange()) {
-      existingEntry.setStartRange(true);
-    }
-    if (entry.getSortString() != null) {
-      existingEntry.setSortString(entry.getSortString());
+  /**
+   * Insert entry into the next level of the index trie.
+   *
+   * @param children children to insert into, {@code null} if there are none yet
+   * @param entry entry to attach or merge into an existing child with the same value
+   * @return children
+   */
+  private static Children insert(final Children children, final IndexEntry entry) {
+    final Children res = children != null ? children : new Children();
+    final IndexEntry existingEntry = res.find(entry.getValue());
+    if (existingEntry == null) {
+      res.append(entry);
+    } else {
+      IndexTrie.merge(existingEntry, entry, true);
     }
+    return res;
   }
 
   @Override
@@ -226,49 +244,62 @@ public class IndexEntryImpl implements IndexEntry {
 
   @Override
   public void setStartRange(final boolean startRange) {
-    if (startRange && endsRange) {
-      endsRange = false;
+    if (startRange) {
+      flags = (byte) ((flags | FLAG_START_RANGE) & ~FLAG_END_RANGE);
+    } else {
+      flags = (byte) (flags & ~FLAG_START_RANGE);
     }
-    this.startRange = startRange;
   }
 
   @Override
   public void setEndsRange(final boolean endsRange) {
-    if (endsRange && startRange) {
-      startRange = false;
+    if (endsRange) {
+      flags = (byte) ((flags | FLAG_END_RANGE) & ~FLAG_START_RANGE);
+    } else {
+      flags = (byte) (flags & ~FLAG_END_RANGE);
     }
-    this.endsRange = endsRange;
   }
 
   @Override
   public void setSuppressesThePageNumber(final boolean suppressesThePageNumber) {
-    if (suppressesThePageNumber && restoresPageNumber) {
-      restoresPageNumber = false;
+    if (suppressesThePageNumber) {
+      flags = (byte) ((flags | FLAG_NO_PAGE) & ~FLAG_SINGLE_PAGE);
+    } else {
+      flags = (byte) (flags & ~FLAG_NO_PAGE);
     }
-
-    this.suppressesThePageNumber = suppressesThePageNumber;
   }
 
   @Override
   public void setRestoresPageNumber(final boolean restoresPageNumber) {
-    if (restoresPageNumber && suppressesThePageNumber) {
-      suppressesThePageNumber = false;
+    if (restoresPageNumber) {
+      flags = (byte) ((flags | FLAG_SINGLE_PAGE) & ~FLAG_NO_PAGE);
+    } else {
+      flags = (byte) (flags & ~FLAG_SINGLE_PAGE);
     }
-    this.restoresPageNumber = restoresPageNumber;
   }
 
   // FIXME this should return an empty list of no values, but it will lead to incorrect output
   //  and we don't have a test for it
   @Override
   public List<IndexEntry> getSeeChildIndexEntries() {
-    return seeChilds.isEmpty() ? null : new ArrayList(seeChilds.values());
+    return seeChilds == null ? null : new ArrayList<>(seeChilds);
   }
 
   // FIXME this should return an empty list of no values, but it will lead to incorrect output
   //  and we don't have a test for it
   @Override
   public List<IndexEntry> getSeeAlsoChildIndexEntries() {
-    return seeAlsoChilds.isEmpty() ? null : new ArrayList(seeAlsoChilds.values());
+    return seeAlsoChilds == null ? null : new ArrayList<>(seeAlsoChilds);
+  }
+
+  @Override
+  public List<IndexEntry> seeChildren() {
+    return seeChilds == null ? emptyList() : seeChilds;
+  }
+
+  @Override
+  public List<IndexEntry> seeAlsoChildren() {
+    return seeAlsoChilds == null ? emptyList() : seeAlsoChilds;
   }
 
   @Override
@@ -291,4 +322,55 @@ public class IndexEntryImpl implements IndexEntry {
     }
     return result.toString();
   }
+
+  /**
+   * Read-only list of child entries by value in insertion order. Entries are looked up with a
+   * linear search until there are too many of them, most entries have only a few children.
+   */
+  private static final class Children extends AbstractList<IndexEntry> {
+    private static final int HASH_THRESHOLD = 8;
+
+    private IndexEntry[] entries = new IndexEntry[2];
+    private int size;
+    /** Entries by value, {@code null} until size exceeds threshold. */
+    private Map<String, IndexEntry> byValue;
+
+    @Override
+    public IndexEntry get(final int index) {
+      Objects.checkIndex(index, size);
+      return entries[index];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    IndexEntry find(final String value) {
+      if (byValue != null) {
+        return byValue.get(value);
+      }
+      for (int i = 0; i < size; i++) {
+        if (Objects.equals(entries[i].getValue(), value)) {
+          return entries[i];
+        }
+      }
+      return null;
+    }
+
+    void append(final IndexEntry entry) {
+      if (size == entries.length) {
+        entries = Arrays.copyOf(entries, size * 2);
+      }
+      entries[size++] = entry;
+      if (byValue != null) {
+        byValue.put(entry.getValue(), entry);
+      } else if (size > HASH_THRESHOLD) {
+        byValue = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+          byValue.put(entries[i].getValue(), entries[i]);
+        }
+      }
+    }
+  }
 }
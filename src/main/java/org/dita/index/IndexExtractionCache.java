@@ -0,0 +1,456 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static org.dita.dost.util.Constants.ATTRIBUTE_NAME_CLASS;
+import static org.dita.dost.util.Constants.TOPIC_TOPIC;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.w3c.dom.Attr;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * On-disk cache of index entries extracted from topics. Each topic is keyed by a SHA-256 hash of
+ * its content, nested topics excluded, and the cache stores the index entries read from every
+ * index term of the topic in document order. Markup contents of index entries are stored as
+ * positions within the index term element and resolved against the input document when the entries
+ * are read back.
+ *
+ * <p>Cache files are written atomically, so a cache directory can be shared by concurrent jobs.
+ * Entries are never evicted, the directory can be deleted at any time to reclaim space.
+ *
+ * <pre>
+ * int     magic
+ * short   version
+ * int     index term count
+ * term*   int entry count, entry*
+ * entry   utf value, string formatted value, string sort string, byte flags, int ref ID count,
+ *         utf ref ID*, int content count or -1, int content position*, int child count, entry*,
+ *         int see count, entry*, int see also count, entry*
+ * string  boolean present, utf value if present
+ * </pre>
+ */
+final class IndexExtractionCache {
+
+  private static final int MAGIC = 0x44495845;
+  private static final short VERSION = 1;
+  private static final String EXTENSION = ".bin";
+
+  private static final int FLAG_START_RANGE = 1;
+  private static final int FLAG_END_RANGE = 1 << 1;
+  private static final int FLAG_NO_PAGE = 1 << 2;
+  private static final int FLAG_SINGLE_PAGE = 1 << 3;
+
+  private final File dir;
+
+  /**
+   * Create new extraction cache.
+   *
+   * @param dir cache directory, created when the first topic is stored
+   */
+  IndexExtractionCache(final File dir) {
+    this.dir = dir;
+  }
+
+  /**
+   * Create cache key for a topic. Content of nested topics does not contribute to the key.
+   *
+   * @param topic topic element
+   * @param includeDraft whether draft content is processed
+   * @return cache key, or {@code null} if the topic contains no index terms
+   */
+  static String key(final Node topic, final boolean includeDraft) {
+    final KeyBuilder builder = new KeyBuilder();
+    builder.update(VERSION);
+    builder.update(includeDraft ? 1 : 0);
+    builder.update(topic);
+    if (!builder.indexTerms) {
+      return null;
+    }
+    final StringBuilder buf = new StringBuilder(64);
+    for (final byte b : builder.digest()) {
+      buf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return buf.toString();
+  }
+
+  /** Content hash of a topic. Characters are buffered and passed to the digest in blocks. */
+  private static final class KeyBuilder {
+    private final MessageDigest digest;
+    private final byte[] buf = new byte[8192];
+    private int length;
+    /** Whether an index term element has been hashed. */
+    private boolean indexTerms;
+
+    KeyBuilder() {
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (final NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    byte[] digest() {
+      digest.update(buf, 0, length);
+      length = 0;
+      return digest.digest();
+    }
+
+    void update(final Node node) {
+      update(node.getNodeType());
+      switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE:
+          update(node.getNamespaceURI());
+          update(node.getNodeName());
+          final NamedNodeMap attributes = node.getAttributes();
+          for (int i = 0; i < attributes.getLength(); i++) {
+            final Attr attribute = (Attr) attributes.item(i);
+            update(attribute.getNamespaceURI());
+            update(attribute.getName());
+            update(attribute.getValue());
+            if (!indexTerms
+                && attribute.getNamespaceURI() == null
+                && attribute.getName().equals(ATTRIBUTE_NAME_CLASS)
+                && IndexPreprocessor.isDitaIndexElement(attribute.getValue())) {
+              indexTerms = true;
+            }
+          }
+          for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (TOPIC_TOPIC.matches(child)) {
+              update(0);
+            } else {
+              update(child);
+            }
+          }
+          update(0);
+          break;
+        case Node.ENTITY_REFERENCE_NODE:
+          for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            update(child);
+          }
+          update(0);
+          break;
+        case Node.PROCESSING_INSTRUCTION_NODE:
+          update(node.getNodeName());
+          update(node.getNodeValue());
+          break;
+        default:
+          update(node.getNodeValue());
+          break;
+      }
+    }
+
+    /** Add string with its length, {@code null} is distinct from an empty string. */
+    private void update(final String value) {
+      if (value == null) {
+        update(0);
+        return;
+      }
+      update((value.length() + 1) >>> 16);
+      update(value.length() + 1);
+      for (int i = 0; i < value.length(); i++) {
+        update(value.charAt(i));
+      }
+    }
+
+    /** Add 16-bit value. */
+    private void update(final int value) {
+      if (length + 2 > buf.length) {
+        digest.update(buf, 0, length);
+        length = 0;
+      }
+      buf[length++] = (byte) (value >>> 8);
+      buf[length++] = (byte) value;
+    }
+  }
+
+  /**
+   * Read cached index terms of a topic.
+   *
+   * @param key topic cache key
+   * @return index terms in document order, or {@code null} if the topic is not cached
+   */
+  List<CachedIndexTerm> get(final String key) throws IOException {
+    final byte[] data;
+    try {
+      data = Files.readAllBytes(getFile(key));
+    } catch (final NoSuchFileException e) {
+      return null;
+    }
+    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+    if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+      return null;
+    }
+    final int count = in.readInt();
+    final List<CachedIndexTerm> res = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      res.add(new CachedIndexTerm(readEntries(in)));
+    }
+    return res;
+  }
+
+  /**
+   * Store index terms of a topic.
+   *
+   * @param key topic cache key
+   * @param recorder index terms read from the topic
+   */
+  void put(final String key, final Recorder recorder) throws IOException {
+    final Path file = getFile(key);
+    Files.createDirectories(file.getParent());
+    final Path tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(recorder.count);
+        recorder.buf.writeTo(out);
+      }
+      try {
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (final AtomicMoveNotSupportedException e) {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  private Path getFile(final String key) {
+    return new File(new File(dir, key.substring(0, 2)), key + EXTENSION).toPath();
+  }
+
+  private static CachedEntry[] readEntries(final DataInputStream in) throws IOException {
+    final CachedEntry[] entries = new CachedEntry[in.readInt()];
+    for (int i = 0; i < entries.length; i++) {
+      final String value = in.readUTF();
+      final String formattedString = readString(in);
+      final String sortString = readString(in);
+      final int flags = in.readByte();
+      final String[] refIDs = new String[in.readInt()];
+      for (int j = 0; j < refIDs.length; j++) {
+        refIDs[j] = in.readUTF();
+      }
+      final int contentCount = in.readInt();
+      final int[] contents = contentCount == -1 ? null : new int[contentCount];
+      for (int j = 0; j < contentCount; j++) {
+        contents[j] = in.readInt();
+      }
+      entries[i] =
+          new CachedEntry(
+              value,
+              formattedString,
+              sortString,
+              flags,
+              refIDs,
+              contents,
+              readEntries(in),
+              readEntries(in),
+              readEntries(in));
+    }
+    return entries;
+  }
+
+  private static String readString(final DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  /** Index entries read from a single index term element. */
+  static final class CachedIndexTerm {
+    private final CachedEntry[] entries;
+
+    private CachedIndexTerm(final CachedEntry[] entries) {
+      this.entries = entries;
+    }
+
+    /**
+     * Create index entries.
+     *
+     * @param node normalized index term element the entries were read from
+     * @param symbols symbol table to store index values and refIDs in
+     * @return new index entries
+     */
+    List<IndexEntry> toIndexEntries(final Node node, final SymbolTable symbols) {
+      final List<IndexEntry> res = new ArrayList<>(entries.length);
+      final List<Node> nodes = new ArrayList<>();
+      for (final CachedEntry entry : entries) {
+        res.add(entry.toIndexEntry(node, nodes, symbols));
+      }
+      return res;
+    }
+  }
+
+  private static final class CachedEntry {
+    private final String value;
+    private final String formattedString;
+    private final String sortString;
+    private final int flags;
+    private final String[] refIDs;
+    private final int[] contents;
+    private final CachedEntry[] childs;
+    private final CachedEntry[] seeChilds;
+    private final CachedEntry[] seeAlsoChilds;
+
+    private CachedEntry(
+        final String value,
+        final String formattedString,
+        final String sortString,
+        final int flags,
+        final String[] refIDs,
+        final int[] contents,
+        final CachedEntry[] childs,
+        final CachedEntry[] seeChilds,
+        final CachedEntry[] seeAlsoChilds) {
+      this.value = value;
+      this.formattedString = formattedString;
+      this.sortString = sortString;
+      this.flags = flags;
+      this.refIDs = refIDs;
+      this.contents = contents;
+      this.childs = childs;
+      this.seeChilds = seeChilds;
+      this.seeAlsoChilds = seeAlsoChilds;
+    }
+
+    /**
+     * @param node index term element
+     * @param nodes lazily filled descendants of the index term element in document order
+     * @param symbols symbol table to store index values and refIDs in
+     */
+    private IndexEntry toIndexEntry(
+        final Node node, final List<Node> nodes, final SymbolTable symbols) {
+      List<Node> contentNodes = null;
+      if (contents != null) {
+        if (nodes.isEmpty()) {
+          collect(node, nodes);
+        }
+        contentNodes = new ArrayList<>(contents.length);
+        for (final int position : contents) {
+          contentNodes.add(nodes.get(position));
+        }
+      }
+      final IndexEntry entry =
+          new IndexEntryImpl(symbols, value, sortString, formattedString, contentNodes);
+      entry.setStartRange((flags & FLAG_START_RANGE) != 0);
+      entry.setEndsRange((flags & FLAG_END_RANGE) != 0);
+      entry.setSuppressesThePageNumber((flags & FLAG_NO_PAGE) != 0);
+      entry.setRestoresPageNumber((flags & FLAG_SINGLE_PAGE) != 0);
+      for (final String refID : refIDs) {
+        entry.addRefID(refID);
+      }
+      for (final CachedEntry child : childs) {
+        entry.addChild(child.toIndexEntry(node, nodes, symbols));
+      }
+      for (final CachedEntry child : seeChilds) {
+        entry.addSeeChild(child.toIndexEntry(node, nodes, symbols));
+      }
+      for (final CachedEntry child : seeAlsoChilds) {
+        entry.addSeeAlsoChild(child.toIndexEntry(node, nodes, symbols));
+      }
+      return entry;
+    }
+  }
+
+  /** Collect descendants of a node in document order. */
+  private static void collect(final Node node, final List<Node> nodes) {
+    for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+      nodes.add(child);
+      collect(child, nodes);
+    }
+  }
+
+  /** Serializes index entries read from the index term elements of a single topic. */
+  static final class Recorder {
+    private final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(buf);
+    private int count;
+
+    /**
+     * Add index entries read from an index term element.
+     *
+     * @param node normalized index term element
+     * @param entries index entries read from the element
+     */
+    void add(final Node node, final List<IndexEntry> entries) throws IOException {
+      write(entries, node, new IdentityHashMap<>());
+      count++;
+    }
+
+    private void write(
+        final List<IndexEntry> entries, final Node node, final Map<Node, Integer> positions)
+        throws IOException {
+      if (entries == null) {
+        out.writeInt(0);
+        return;
+      }
+      out.writeInt(entries.size());
+      for (final IndexEntry entry : entries) {
+        out.writeUTF(entry.getValue());
+        writeString(entry.getFormattedString());
+        writeString(entry.getSortString());
+        out.writeByte(
+            (entry.isStartingRange() ? FLAG_START_RANGE : 0)
+                | (entry.isEndingRange() ? FLAG_END_RANGE : 0)
+                | (entry.isSuppressesThePageNumber() ? FLAG_NO_PAGE : 0)
+                | (entry.isRestoresPageNumber() ? FLAG_SINGLE_PAGE : 0));
+        out.writeInt(entry.getRefIDs().size());
+        for (final String refID : entry.getRefIDs()) {
+          out.writeUTF(refID);
+        }
+        final List<Node> contents = entry.getContents();
+        if (contents == null) {
+          out.writeInt(-1);
+        } else {
+          if (positions.isEmpty()) {
+            final List<Node> nodes = new ArrayList<>();
+            collect(node, nodes);
+            for (int i = 0; i < nodes.size(); i++) {
+              positions.put(nodes.get(i), i);
+            }
+          }
+          out.writeInt(contents.size());
+          for (final Node content : contents) {
+            final Integer position = positions.get(content);
+            if (position == null) {
+              throw new IOException("Index entry content is not a descendant of index term");
+            }
+            out.writeInt(position);
+          }
+        }
+        write(entry.children(), node, positions);
+        write(entry.seeChildren(), node, positions);
+        write(entry.seeAlsoChildren(), node, positions);
+      }
+    }
+
+    private void writeString(final String value) throws IOException {
+      out.writeBoolean(value != null);
+      if (value != null) {
+        out.writeUTF(value);
+      }
+    }
+  }
+}
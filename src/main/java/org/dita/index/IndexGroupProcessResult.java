@@ -0,0 +1,26 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.util.Collection;
+import java.util.List;
+
+/** Result of putting index entries into index groups. */
+public class IndexGroupProcessResult {
+  /** Non-empty index groups. */
+  public final List<IndexGroup> indexGroups;
+  /** Index entries that did not belong to any index group. */
+  public final Collection<IndexEntry> uncategorizedEntries;
+
+  public IndexGroupProcessResult(
+      final List<IndexGroup> indexGroups, final Collection<IndexEntry> uncategorizedEntries) {
+    this.indexGroups = indexGroups;
+    this.uncategorizedEntries = uncategorizedEntries;
+  }
+}
@@ -40,6 +40,7 @@ import org.dita.index.configuration.IndexConfiguration;
 public final class IndexGroupProcessor {
 
   private DITAOTLogger logger;
+  private IndexStatistics statistics = new IndexStatistics();
 
   private static final String SPECIAL_CHARACTER_GROUP_KEY = "Specials";
 
@@ -47,15 +48,19 @@ public final class IndexGroupProcessor {
     this.logger = logger;
   }
 
+  public void setStatistics(final IndexStatistics statistics) {
+    this.statistics = statistics;
+  }
+
   /**
    * Puts index entries to the group they are belongs
    *
    * @param indexEntries index entries
    * @param indexConfiguration index configuration
    * @param locale locale used to sort and compare index entries
-   * @return groups with sorted index entries inside
+   * @return groups with sorted index entries inside and entries that did not belong to any group
    */
-  public List<IndexGroup> process(
+  public IndexGroupProcessResult process(
       final Collection<IndexEntry> indexEntries,
       final IndexConfiguration indexConfiguration,
       final Locale locale) {
@@ -65,7 +70,11 @@ public final class IndexGroupProcessor {
 
     final List<ConfigEntry> entries = indexConfiguration.getEntries();
 
-    final Map<String, IndexEntry> indexMap = createMap(indexEntries);
+    final IndexTrie trie = new IndexTrie();
+    for (final IndexEntry indexEntry : indexEntries) {
+      trie.insert(indexEntry);
+    }
+    final Map<String, IndexEntry> indexMap = trie.getRoots();
 
     // Creating array of index groups
     for (final ConfigEntry configEntry : entries) {
@@ -158,16 +167,11 @@ public final class IndexGroupProcessor {
 
     // No recognized "Special characters" group; uncategorized terms have no place to go, must be
     // dropped
-    if (!indexMap.isEmpty()) {
-      for (final String key : new ArrayList<>(indexMap.keySet())) {
-        if (!key.isEmpty()) {
-          final IndexEntry entry = indexMap.get(key);
-          logger.error(MessageUtils.getMessage("INDX002E", entry.toString()).toString());
-        }
-      }
-      if (IndexPreprocessorTask.failOnError) {
-        logger.error(MessageUtils.getMessage("INDX003E").toString());
-        IndexPreprocessorTask.processingFaild = true;
+    final List<IndexEntry> uncategorizedEntries = new ArrayList<>();
+    for (final Map.Entry<String, IndexEntry> e : indexMap.entrySet()) {
+      if (!e.getKey().isEmpty()) {
+        logger.error(MessageUtils.getMessage("INDX002E", e.getValue().toString()).toString());
+        uncategorizedEntries.add(e.getValue());
       }
     }
 
@@ -177,7 +181,8 @@ public final class IndexGroupProcessor {
         cleanResult.add(indexGroup);
       }
     }
-    return cleanResult;
+    statistics.addComparisons(collator.getComparisons());
+    return new IndexGroupProcessResult(cleanResult, uncategorizedEntries);
   }
 
   private static String getValue(final IndexEntry entry) {
@@ -233,49 +238,4 @@ public final class IndexGroupProcessor {
     }
     return false;
   }
-
-  private static Map<String, IndexEntry> createMap(final Collection<IndexEntry> indexEntries) {
-    final Map<String, IndexEntry> map = new HashMap<>();
-    for (final IndexEntry indexEntrie : indexEntries) {
-      final String value = indexEntrie.getValue();
-
-      if (!map.containsKey(value)) {
-        map.put(value, indexEntrie);
-      } else {
-        final IndexEntry existingEntry = map.get(value);
-        final Collection<IndexEntry> childIndexEntries = indexEntrie.getChildIndexEntries();
-        for (final IndexEntry childIndexEntry : childIndexEntries) {
-          existingEntry.addChild(childIndexEntry);
-        }
-        final Collection<IndexEntry> seeChildIndexEntries = indexEntrie.getSeeChildIndexEntries();
-        if (seeChildIndexEntries != null) {
-          for (final IndexEntry seeChildIndexEntry : seeChildIndexEntries) {
-            existingEntry.addSeeChild(seeChildIndexEntry);
-          }
-        }
-        final Collection<IndexEntry> seeAlsoChildIndexEntries =
-            indexEntrie.getSeeAlsoChildIndexEntries();
-        if (seeAlsoChildIndexEntries != null) {
-          for (final IndexEntry seeAlsoChildIndexEntry : seeAlsoChildIndexEntries) {
-            existingEntry.addSeeAlsoChild(seeAlsoChildIndexEntry);
-          }
-        }
-        // supress some attributes of given entry to the existing one
-        if (indexEntrie.isRestoresPageNumber()) {
-          existingEntry.setRestoresPageNumber(true);
-        }
-        final Set<String> refIDs = indexEntrie.getRefIDs();
-        for (final String refID : refIDs) {
-          existingEntry.addRefID(refID);
-        }
-        if (!indexEntrie.isSuppressesThePageNumber()) {
-          existingEntry.setSuppressesThePageNumber(false);
-        }
-        if (indexEntrie.isStartingRange()) {
-          existingEntry.setStartRange(true);
-        }
-      }
-    }
-    return map;
-  }
 }
@@ -0,0 +1,110 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.log.MessageUtils;
+
+/**
+ * Generator of {@code indexid} attribute values for refIDs. The index ID of each distinct refID is
+ * computed once per run and cached by the symbol ID of the refID. {@link Hash#STRING} index IDs are
+ * not cached unless collisions are checked, because strings cache their hash code.
+ *
+ * <p>Generator is not thread-safe, index entries are serialized by a single thread.
+ */
+final class IndexIdGenerator {
+
+  private static final String HASH_PREFIX = "indexid";
+
+  /** Hash scheme used to compute index IDs. */
+  enum Hash {
+    /** 32-bit {@link String#hashCode()} in decimal, compatible with earlier versions. */
+    STRING,
+    /** 64-bit FarmHash fingerprint of UTF-8 encoded refID in base 36. */
+    FINGERPRINT64
+  }
+
+  private static final HashFunction FINGERPRINT64 = Hashing.farmHashFingerprint64();
+
+  private static final String[] EMPTY = new String[0];
+
+  private final Hash hash;
+  private final DITAOTLogger logger;
+  /** Index IDs by symbol ID of refID, {@code null} if index IDs are not cached. */
+  private String[] indexIds;
+  /** RefIDs by index ID, {@code null} if collisions are not checked. */
+  private final Map<String, String> refIDs;
+
+  /**
+   * Create new index ID generator.
+   *
+   * @param hash hash scheme
+   * @param checkCollisions report refIDs that have the same index ID
+   * @param logger logger to report collisions to, may be {@code null}
+   */
+  IndexIdGenerator(final Hash hash, final boolean checkCollisions, final DITAOTLogger logger) {
+    this.hash = hash;
+    this.logger = logger;
+    this.refIDs = checkCollisions ? new HashMap<>() : null;
+    this.indexIds = hash != Hash.STRING || checkCollisions ? EMPTY : null;
+  }
+
+  /** Create new index ID generator compatible with earlier versions. */
+  IndexIdGenerator() {
+    this(Hash.STRING, false, null);
+  }
+
+  /**
+   * Get index ID for refID.
+   *
+   * @param symbols symbol table of the run, the same table must be used for all refIDs
+   * @param refID refID
+   * @return index ID
+   */
+  String get(final SymbolTable symbols, final String refID) {
+    if (indexIds == null) {
+      return HASH_PREFIX + hash(refID);
+    }
+    final int symbol = symbols.id(refID);
+    if (symbol >= indexIds.length) {
+      indexIds = Arrays.copyOf(indexIds, Math.max(symbol + 1, indexIds.length * 2));
+    }
+    String indexId = indexIds[symbol];
+    if (indexId == null) {
+      indexId = HASH_PREFIX + hash(refID);
+      indexIds[symbol] = indexId;
+      if (refIDs != null) {
+        final String previous = refIDs.putIfAbsent(indexId, refID);
+        if (previous != null && logger != null) {
+          logger.warn(MessageUtils.getMessage("INDX004W", indexId, previous, refID).toString());
+        }
+      }
+    }
+    return indexId;
+  }
+
+  private String hash(final String refID) {
+    switch (hash) {
+      case STRING:
+        return Integer.toString(refID.hashCode());
+      case FINGERPRINT64:
+        final long value = FINGERPRINT64.hashString(refID, UTF_8).asLong();
+        return Long.toUnsignedString(value, Character.MAX_RADIX);
+      default:
+        throw new IllegalArgumentException(hash.toString());
+    }
+  }
+}
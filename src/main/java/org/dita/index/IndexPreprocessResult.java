@@ -32,14 +32,27 @@ See the accompanying LICENSE file for applicable license.
 package org.dita.index;
 
 import java.util.Collection;
+import java.util.Collections;
 import org.w3c.dom.Document;
 
 public class IndexPreprocessResult {
+  /** Result document, {@code null} if output was written directly to a stream. */
   public final Document document;
+
   public final Collection<IndexEntry> indexEntries;
+  /** Index entries that did not belong to any index group and were dropped. */
+  public final Collection<IndexEntry> uncategorizedEntries;
 
   public IndexPreprocessResult(final Document document, final Collection<IndexEntry> indexEntries) {
+    this(document, indexEntries, Collections.emptyList());
+  }
+
+  public IndexPreprocessResult(
+      final Document document,
+      final Collection<IndexEntry> indexEntries,
+      final Collection<IndexEntry> uncategorizedEntries) {
     this.document = document;
     this.indexEntries = indexEntries;
+    this.uncategorizedEntries = uncategorizedEntries;
   }
 }
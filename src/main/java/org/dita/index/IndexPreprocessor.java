@@ -34,9 +34,19 @@ package org.dita.index;
 import static javax.xml.XMLConstants.XMLNS_ATTRIBUTE;
 import static org.dita.dost.util.Constants.*;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.util.XMLUtils;
+import org.dita.index.IndexExtractionCache.CachedIndexTerm;
+import org.dita.index.IndexExtractionCache.Recorder;
 import org.dita.index.configuration.IndexConfiguration;
 import org.w3c.dom.*;
 
@@ -47,7 +57,6 @@ public final class IndexPreprocessor {
 
   private static final String ATTR_START = "start";
   private static final String ATTR_END = "end";
-  private static final String HASH_PREFIX = "indexid";
   private static final String ELEM_INDEX_GROUPS = "index.groups";
   private static final String ELEM_INDEX_GROUP = "index.group";
   private static final String ELEM_LABEL = "label";
@@ -66,10 +75,24 @@ public final class IndexPreprocessor {
 
   private final String prefix;
   private final String namespaceUrl;
-  private final Deque<Boolean> excludedDraftSection = new ArrayDeque<>();
+  /** Index values and refIDs of the current run. */
+  private final SymbolTable symbols = new SymbolTable();
+
   private final IndexDitaProcessor indexDitaProcessor;
   private final IndexGroupProcessor indexGroupProcessor;
   private final boolean includeDraft;
+  private final Deque<TopicExtraction> topics = new ArrayDeque<>();
+  private IndexExtractionCache extractionCache;
+  private IndexIdGenerator indexIdGenerator = new IndexIdGenerator();
+  /** Spill that read index entries are added to, {@code null} when they are kept in memory. */
+  private IndexSpill spill;
+  private ForkJoinPool extractionPool;
+  /** Parallel extraction of the document being processed, {@code null} when reading in order. */
+  private ParallelExtraction parallelExtraction;
+  private DITAOTLogger logger;
+  private IndexStatistics statistics = new IndexStatistics();
+  /** Number of open draft elements whose index terms are excluded. */
+  private int excludedDraftDepth;
 
   /**
    * Create new index preprocessor.
@@ -81,44 +104,166 @@ public final class IndexPreprocessor {
       final String prefix, final String namespaceUrl, final boolean includeDraft) {
     this.prefix = prefix;
     this.namespaceUrl = namespaceUrl;
-    this.excludedDraftSection.add(false);
     this.includeDraft = includeDraft;
-    indexDitaProcessor = new IndexDitaProcessor();
+    indexDitaProcessor = new IndexDitaProcessor(symbols);
     indexGroupProcessor = new IndexGroupProcessor();
   }
 
   public void setLogger(final DITAOTLogger logger) {
+    this.logger = logger;
     indexDitaProcessor.setLogger(logger);
     indexGroupProcessor.setLogger(logger);
   }
 
+  /**
+   * Set statistics to record group and sort phases and index entry counters in.
+   *
+   * @param statistics statistics of the current job
+   */
+  public void setStatistics(final IndexStatistics statistics) {
+    this.statistics = statistics;
+    indexGroupProcessor.setStatistics(statistics);
+  }
+
+  /**
+   * Set cache for index entries extracted from topics. Index terms of topics found in the cache are
+   * not read again.
+   *
+   * @param extractionCache extraction cache, {@code null} to disable caching
+   */
+  void setExtractionCache(final IndexExtractionCache extractionCache) {
+    this.extractionCache = extractionCache;
+  }
+
+  /**
+   * Set pool to read index terms of top-level topics in parallel in {@link #process(Document)}.
+   * Index entries are merged in document order, so the result is the same as when reading
+   * sequentially. The pool is not used when an extraction cache is set.
+   *
+   * @param extractionPool pool for reading index terms, {@code null} to read sequentially
+   */
+  void setExtractionPool(final ForkJoinPool extractionPool) {
+    this.extractionPool = extractionPool;
+  }
+
   /**
    * Process index terms. Walks through source document and builds an array of IndexEntry and builds
    * a new document with pre-processed index entries included.
    *
+   * <p>Neither the returned document nor the index entries reference the input document, so it
+   * can be released after processing. The document type declaration of the input is copied to
+   * the returned document.
+   *
    * @param input input document
    * @return read index terms
    */
   IndexPreprocessResult process(final Document input) {
-    final Document doc = input.getImplementation().createDocument(null, null, null);
+    final DOMImplementation implementation = input.getImplementation();
+    final Document doc = implementation.createDocument(null, null, null);
+    final DocumentType doctype = input.getDoctype();
+    if (doctype != null) {
+      doc.appendChild(
+          implementation.createDocumentType(
+              doctype.getName(), doctype.getPublicId(), doctype.getSystemId()));
+    }
     final Node rootElement = input.getDocumentElement();
     final List<IndexEntry> indexes = new ArrayList<>();
-    final Node node = processCurrNode(rootElement, doc, indexes::add).get(0);
-    doc.appendChild(node);
+    if (extractionPool != null && extractionCache == null) {
+      parallelExtraction = new ParallelExtraction(implementation);
+      try {
+        processCurrNode(rootElement, doc, null);
+        parallelExtraction.merge(doc, indexes::add);
+      } finally {
+        parallelExtraction = null;
+      }
+    } else {
+      final Document contentsDocument = newDocument();
+      processCurrNode(
+          rootElement,
+          doc,
+          indexEntry -> {
+            detachContents(indexEntry, contentsDocument);
+            indexes.add(indexEntry);
+          });
+    }
     doc.getDocumentElement().setAttribute(XMLNS_ATTRIBUTE + ":" + prefix, namespaceUrl);
     return new IndexPreprocessResult(doc, indexes);
   }
 
-  /** Append index groups to the end of document */
-  void createAndAddIndexGroups(
+  /**
+   * Replace markup contents of index entry and its descendants with copies owned by a separate
+   * document, so that index entries do not keep the source document reachable.
+   *
+   * @param indexEntry index entry with mutable contents
+   * @param document document to import contents to
+   */
+  private static void detachContents(final IndexEntry indexEntry, final Document document) {
+    final List<Node> contents = indexEntry.getContents();
+    if (contents != null) {
+      for (final ListIterator<Node> i = contents.listIterator(); i.hasNext(); ) {
+        i.set(document.importNode(i.next(), true));
+      }
+    }
+    detachContents(indexEntry.children(), document);
+    detachContents(indexEntry.seeChildren(), document);
+    detachContents(indexEntry.seeAlsoChildren(), document);
+  }
+
+  private static void detachContents(final List<IndexEntry> indexEntries, final Document document) {
+    for (final IndexEntry indexEntry : indexEntries) {
+      detachContents(indexEntry, document);
+    }
+  }
+
+  /**
+   * Append index groups to the end of document
+   *
+   * @return index entries that did not belong to any index group
+   */
+  Collection<IndexEntry> createAndAddIndexGroups(
       final Collection<IndexEntry> indexEntries,
       final IndexConfiguration configuration,
       final Document document,
       final Locale locale) {
-    final IndexComparator indexEntryComparator = new IndexComparator(locale);
-    final List<IndexGroup> indexGroups =
-        indexGroupProcessor.process(indexEntries, configuration, locale);
+    final IndexGroupProcessResult groups = groupIndexEntries(indexEntries, configuration, locale);
     final Element rootElement = document.getDocumentElement();
+    rootElement.appendChild(createIndexGroups(groups.indexGroups, document, locale));
+    return groups.uncategorizedEntries;
+  }
+
+  /**
+   * Put index entries into index groups.
+   *
+   * @param indexEntries index entries
+   * @param configuration index configuration
+   * @param locale locale used to sort and group index entries
+   * @return index groups and uncategorized index entries
+   */
+  IndexGroupProcessResult groupIndexEntries(
+      final Collection<IndexEntry> indexEntries,
+      final IndexConfiguration configuration,
+      final Locale locale) {
+    statistics.start(IndexStatistics.Phase.GROUP);
+    final IndexGroupProcessResult result =
+        indexGroupProcessor.process(indexEntries, configuration, locale);
+    statistics.addEntries(indexEntries.size());
+    statistics.addGroups(result.indexGroups.size());
+    statistics.stop(IndexStatistics.Phase.GROUP);
+    return result;
+  }
+
+  /**
+   * Create index groups element.
+   *
+   * @param indexGroups index groups
+   * @param document document used to create nodes, the returned element is not attached to it
+   * @param locale locale used to sort index entries
+   * @return index groups element
+   */
+  Element createIndexGroups(
+      final List<IndexGroup> indexGroups, final Document document, final Locale locale) {
+    statistics.start(IndexStatistics.Phase.GROUP);
+    final IndexComparator indexEntryComparator = new IndexComparator(locale);
     final Element indexGroupsElement = document.createElementNS(namespaceUrl, ELEM_INDEX_GROUPS);
     indexGroupsElement.setPrefix(prefix);
     for (final IndexGroup group : indexGroups) {
@@ -131,58 +276,274 @@ public final class IndexPreprocessor {
       groupLabelElement.appendChild(document.createTextNode(group.getLabel()));
       groupElement.appendChild(groupLabelElement);
       final List<Node> entryNodes =
-          transformToNodes(new ArrayList(group.getEntries()), document, indexEntryComparator);
+          transformToNodes(group.getEntries(), document, indexEntryComparator, 1);
       for (final Node entryNode : entryNodes) {
         groupElement.appendChild(entryNode);
       }
       indexGroupsElement.appendChild(groupElement);
     }
-    rootElement.appendChild(indexGroupsElement);
+    statistics.addComparisons(indexEntryComparator.getComparisons());
+    statistics.stop(IndexStatistics.Phase.GROUP);
+    return indexGroupsElement;
   }
 
   /**
-   * Processes curr node. Copies node to the target document if its is not a text node of index
-   * entry element. Otherwise it process it and creates nodes with "prefix" in given "namespace_url"
-   * from the parsed index entry text.
+   * Write index groups element. Output is the same as writing the element returned by {@link
+   * #createIndexGroups(List, Document, Locale)} with {@link XMLStreamUtils#writeNode(Node,
+   * XMLStreamWriter)}, but index entries are written directly without creating nodes for them.
    *
-   * @param node node to process
-   * @param targetDocument target document used to import and create nodes
+   * @param indexGroups index groups
+   * @param locale locale used to sort index entries
+   * @param writer writer to write index groups to
+   */
+  void writeIndexGroups(
+      final List<IndexGroup> indexGroups, final Locale locale, final XMLStreamWriter writer)
+      throws XMLStreamException {
+    statistics.start(IndexStatistics.Phase.GROUP);
+    final IndexComparator indexEntryComparator = new IndexComparator(locale);
+    writeStartElement(writer, ELEM_INDEX_GROUPS, indexGroups.isEmpty());
+    for (final IndexGroup group : indexGroups) {
+      writeStartElement(writer, ELEM_INDEX_GROUP, false);
+      writeStartElement(writer, ELEM_LABEL, false);
+      writer.writeCharacters(group.getLabel());
+      writer.writeEndElement();
+      writeIndexEntries(group.getEntries(), writer, indexEntryComparator, 1);
+      writer.writeEndElement();
+    }
+    if (!indexGroups.isEmpty()) {
+      writer.writeEndElement();
+    }
+    statistics.addComparisons(indexEntryComparator.getComparisons());
+    statistics.stop(IndexStatistics.Phase.GROUP);
+  }
+
+  /**
+   * Create spill for top-level index entries read with this preprocessor. Index entries read after
+   * this are stored in the symbol table of the current run of the spill instead of the symbol
+   * table of this preprocessor, until index groups are written from the spill.
+   *
+   * @param dir directory to create spill files in, {@code null} for the default temporary directory
+   * @param threshold number of index entries kept in memory before they are spilled
+   * @param locale locale used to sort index entries
+   * @return new spill
+   */
+  IndexSpill createSpill(final File dir, final int threshold, final Locale locale) {
+    spill = new IndexSpill(dir, threshold, locale);
+    return spill;
+  }
+
+  /**
+   * Put spilled index entries into index groups and write index groups element. Output is the same
+   * as writing the groups returned by {@link #groupIndexEntries(Collection, IndexConfiguration,
+   * Locale)} with {@link #writeIndexGroups(List, Locale, XMLStreamWriter)} for the entries added to
+   * the spill, but only one top-level entry is read into memory at a time.
+   *
+   * @param spill spilled index entries
+   * @param configuration index configuration
+   * @param locale locale used to sort and group index entries
+   * @param writer writer to write index groups to
+   * @return index entries that did not belong to any index group, without refIDs and child entries
+   */
+  Collection<IndexEntry> writeIndexGroups(
+      final IndexSpill spill,
+      final IndexConfiguration configuration,
+      final Locale locale,
+      final XMLStreamWriter writer)
+      throws IOException, XMLStreamException {
+    // all index entries have been read into the spill
+    this.spill = null;
+    statistics.start(IndexStatistics.Phase.GROUP);
+    final IndexGroupProcessResult groups =
+        indexGroupProcessor.process(spill.getEntries(), configuration, locale);
+    statistics.addEntries(spill.size());
+    statistics.addGroups(groups.indexGroups.size());
+    final IndexComparator indexEntryComparator = new IndexComparator(locale);
+    final List<Collection<IndexEntry>> order = new ArrayList<>(groups.indexGroups.size());
+    for (final IndexGroup group : groups.indexGroups) {
+      order.add(sort(group.getEntries(), indexEntryComparator));
+    }
+    final List<Iterable<IndexEntry>> indexEntries = spill.merge(order);
+    writeStartElement(writer, ELEM_INDEX_GROUPS, groups.indexGroups.isEmpty());
+    for (int i = 0; i < groups.indexGroups.size(); i++) {
+      writeStartElement(writer, ELEM_INDEX_GROUP, false);
+      writeStartElement(writer, ELEM_LABEL, false);
+      writer.writeCharacters(groups.indexGroups.get(i).getLabel());
+      writer.writeEndElement();
+      statistics.updateDepth(1);
+      for (final IndexEntry indexEntry : indexEntries.get(i)) {
+        writeIndexEntry(indexEntry, writer, indexEntryComparator, 1);
+      }
+      writer.writeEndElement();
+    }
+    if (!groups.indexGroups.isEmpty()) {
+      writer.writeEndElement();
+    }
+    statistics.addComparisons(indexEntryComparator.getComparisons());
+    statistics.stop(IndexStatistics.Phase.GROUP);
+    return groups.uncategorizedEntries;
+  }
+
+  /**
+   * Processes curr node and its descendants. Copies nodes to the target parent if they are not
+   * index term elements. Otherwise processes them and appends nodes with "prefix" in given
+   * "namespace_url" created from the parsed index entry text.
+   *
+   * <p>The tree is walked iteratively using parent and sibling links of the source and target
+   * nodes, so the depth of the document is not limited by the call stack.
+   *
+   * @param root node to process
+   * @param rootTarget parent node to append processed nodes to
    * @param indexEntryFoundListener listener to notify that new index entry was found
-   * @return the array of nodes after processing input node
    */
-  private List<Node> processCurrNode(
-      final Node node,
-      final Document targetDocument,
+  private void processCurrNode(
+      final Node root,
+      final Node rootTarget,
       final IndexEntryFoundListener indexEntryFoundListener) {
-    if (isDitaIndexElement(node) && !excludedDraftSection.peek()) {
-      return processIndexNode(node, targetDocument, indexEntryFoundListener);
-    } else {
-      final Node result = targetDocument.importNode(node, false);
-      if (!includeDraft && checkDraftNode(node)) {
-        excludedDraftSection.push(true);
+    final Document targetDocument =
+        rootTarget.getNodeType() == Node.DOCUMENT_NODE
+            ? (Document) rootTarget
+            : rootTarget.getOwnerDocument();
+    Node node = root;
+    Node target = rootTarget;
+    while (node != null) {
+      final String cls = getClass(node);
+      if (excludedDraftDepth == 0 && isDitaIndexElement(cls)) {
+        if (parallelExtraction != null) {
+          parallelExtraction.add(node, target.appendChild(targetDocument.createTextNode("")));
+        } else {
+          for (final Node processedNode :
+              processIndexNode(node, targetDocument, indexEntryFoundListener)) {
+            target.appendChild(processedNode);
+          }
+        }
+      } else {
+        final Node result = target.appendChild(targetDocument.importNode(node, false));
+        startNode(node, cls);
+        final Node firstChild = node.getFirstChild();
+        if (firstChild != null) {
+          node = firstChild;
+          target = result;
+          continue;
+        }
+        endNode(getClass(node));
       }
-      final NodeList childNodes = node.getChildNodes();
-      for (int i = 0; i < childNodes.getLength(); i++) {
-        final Node child = childNodes.item(i);
-        final List<Node> processedNodes =
-            processCurrNode(child, targetDocument, indexEntryFoundListener);
-        for (final Node processedNode : processedNodes) {
-          result.appendChild(processedNode);
+      while (node != root && node.getNextSibling() == null) {
+        node = node.getParentNode();
+        target = target.getParentNode();
+        endNode(getClass(node));
+      }
+      node = node != root ? node.getNextSibling() : null;
+    }
+  }
+
+  private static String getClass(final Node node) {
+    return node.getNodeType() == Node.ELEMENT_NODE
+        ? ((Element) node).getAttribute(ATTRIBUTE_NAME_CLASS)
+        : null;
+  }
+
+  /** Enter a copied node: start topic extraction and draft section if needed. */
+  private void startNode(final Node node, final String cls) {
+    if (parallelExtraction != null && isTopic(cls)) {
+      parallelExtraction.startTopic();
+    }
+    if (extractionCache != null && excludedDraftDepth == 0 && isTopic(cls)) {
+      startTopic(node);
+    }
+    if (!includeDraft && isDraftElement(cls)) {
+      excludedDraftDepth++;
+    }
+  }
+
+  /** Leave a copied node: end draft section and topic extraction started by {@link #startNode}. */
+  private void endNode(final String cls) {
+    if (!includeDraft && isDraftElement(cls)) {
+      excludedDraftDepth--;
+    }
+    if (extractionCache != null && excludedDraftDepth == 0 && isTopic(cls)) {
+      endTopic();
+    }
+    if (parallelExtraction != null && isTopic(cls)) {
+      parallelExtraction.endTopic();
+    }
+  }
+
+  /**
+   * Set generator for index IDs of refIDs. Defaults to {@link IndexIdGenerator.Hash#STRING} hash.
+   *
+   * @param indexIdGenerator index ID generator
+   */
+  void setIndexIdGenerator(final IndexIdGenerator indexIdGenerator) {
+    this.indexIdGenerator = indexIdGenerator;
+  }
+
+  private static boolean isTopic(final String cls) {
+    return cls != null && TOPIC_TOPIC.matches(cls);
+  }
+
+  /** Start reading index terms of a topic, either from the extraction cache or from the topic. */
+  private void startTopic(final Node topic) {
+    final String key = IndexExtractionCache.key(topic, includeDraft);
+    List<CachedIndexTerm> cached = null;
+    if (key == null) {
+      cached = Collections.emptyList();
+    } else {
+      try {
+        cached = extractionCache.get(key);
+      } catch (final IOException e) {
+        if (logger != null) {
+          logger.warn("Failed to read index extraction cache: " + e.getMessage());
         }
       }
-      if (!includeDraft && checkDraftNode(node)) {
-        excludedDraftSection.pop();
+    }
+    topics.push(new TopicExtraction(key, cached));
+  }
+
+  /** End reading index terms of a topic and store them in the extraction cache if needed. */
+  private void endTopic() {
+    final TopicExtraction topic = topics.pop();
+    if (topic.recorder != null) {
+      try {
+        extractionCache.put(topic.key, topic.recorder);
+      } catch (final IOException e) {
+        if (logger != null) {
+          logger.warn("Failed to write index extraction cache: " + e.getMessage());
+        }
       }
-      return Collections.singletonList(result);
     }
   }
 
-  private List<Node> processIndexNode(
+  /**
+   * Processes index term element and creates nodes with "prefix" in given "namespace_url" from the
+   * parsed index entries.
+   *
+   * @param node index term element
+   * @param targetDocument target document used to import and create nodes
+   * @param indexEntryFoundListener listener to notify that new index entry was found
+   * @return the array of nodes after processing index term element
+   */
+  List<Node> processIndexNode(
       final Node node,
       final Document targetDocument,
       final IndexEntryFoundListener indexEntryFoundListener) {
     node.normalize();
 
+    final List<IndexEntry> indexEntries =
+        topics.isEmpty() ? readIndexEntries(node) : topics.peek().readIndexEntries(node);
+    for (final IndexEntry indexEntrie : indexEntries) {
+      indexEntryFoundListener.foundEntry(indexEntrie);
+    }
+
+    return transformToNodes(indexEntries, targetDocument, null, 1);
+  }
+
+  /**
+   * Read index entries from index term element.
+   *
+   * @param node normalized index term element
+   * @return index entries, empty if the index term has no value
+   */
+  private List<IndexEntry> readIndexEntries(final Node node) {
     boolean ditastyle = false;
 
     final NodeList childNodes = node.getChildNodes();
@@ -190,7 +551,7 @@ public final class IndexPreprocessor {
     final List<Node> contents = new ArrayList<>();
     for (int i = 0; i < childNodes.getLength(); i++) {
       final Node child = childNodes.item(i);
-      if (isDitaIndexElement(child)) {
+      if (isDitaIndexElement(getClass(child))) {
         ditastyle = true;
         break;
       } else if (child.getNodeType() == Node.ELEMENT_NODE) {
@@ -202,7 +563,7 @@ public final class IndexPreprocessor {
       }
     }
 
-    String textNode = IndexStringProcessor.normalizeTextValue(textBuf.toString());
+    String textNode = WhitespaceNormalizer.normalizeSpace(textBuf.toString());
     if (textNode.isEmpty()) {
       textNode = null;
     }
@@ -212,66 +573,68 @@ public final class IndexPreprocessor {
       ditastyle = true;
     }
 
-    final List<Node> res = new ArrayList<>();
     if (ditastyle) {
-      final List<IndexEntry> indexEntries = indexDitaProcessor.processIndexDitaNode(node, "");
-
-      for (final IndexEntry indexEntrie : indexEntries) {
-        indexEntryFoundListener.foundEntry(indexEntrie);
-      }
-
-      final List<Node> nodes = transformToNodes(indexEntries, targetDocument, null);
-      res.addAll(nodes);
+      return indexDitaProcessor.processIndexDitaNode(node, "", getEntrySymbols());
     } else if (textNode != null) {
-      final List<Node> nodes =
-          processIndexString(textNode, contents, targetDocument, indexEntryFoundListener);
-      res.addAll(nodes);
+      return IndexStringProcessor.processIndexString(textNode, contents, getEntrySymbols());
     } else {
       return Collections.emptyList();
     }
+  }
 
-    return res;
+  /** @return symbol table to store index values and refIDs of read index entries in */
+  private SymbolTable getEntrySymbols() {
+    return spill != null ? spill.getSymbols() : symbols;
   }
 
   /**
-   * Check if node is an index term element or specialization of one.
+   * Check if class attribute value is of an index term element or specialization of one.
    *
-   * @param node element to test
-   * @return {@code true} if node is an index term element, otherwise {@code false}
+   * @param cls class attribute value, may be {@code null}
+   * @return {@code true} if class is of an index term element, otherwise {@code false}
    */
-  private boolean isDitaIndexElement(final Node node) {
-    return TOPIC_INDEXTERM.matches(node)
-        || INDEXING_D_INDEX_SORT_AS.matches(node)
-        || INDEXING_D_INDEX_SEE.matches(node)
-        || INDEXING_D_INDEX_SEE_ALSO.matches(node);
+  static boolean isDitaIndexElement(final String cls) {
+    return cls != null
+        && (TOPIC_INDEXTERM.matches(cls)
+            || INDEXING_D_INDEX_SORT_AS.matches(cls)
+            || INDEXING_D_INDEX_SEE.matches(cls)
+            || INDEXING_D_INDEX_SEE_ALSO.matches(cls));
   }
 
-  private boolean checkDraftNode(final Node node) {
-    return TOPIC_DRAFT_COMMENT.matches(node) || TOPIC_REQUIRED_CLEANUP.matches(node);
+  /**
+   * Check if class attribute value is of a draft element or specialization of one.
+   *
+   * @param cls class attribute value, may be {@code null}
+   * @return {@code true} if class is of a draft element, otherwise {@code false}
+   */
+  static boolean isDraftElement(final String cls) {
+    return cls != null && (TOPIC_DRAFT_COMMENT.matches(cls) || TOPIC_REQUIRED_CLEANUP.matches(cls));
   }
 
   /**
-   * Processes index string and creates nodes with "prefix" in given "namespace_url" from the parsed
-   * index entry text.
+   * Parse locale from a language code with an optional country code, separated with a hyphen or an
+   * underscore.
    *
-   * @param indexString index string param contents index contents
-   * @param targetDocument target document to create new nodes
-   * @param indexEntryFoundListener listener to notify that new index entry was found
-   * @return the array of nodes after processing index string
+   * @param locale locale string, e.g. {@code en} or {@code en-US}
+   * @return locale
    */
-  private List<Node> processIndexString(
-      final String indexString,
-      final List<Node> contents,
-      final Document targetDocument,
-      final IndexEntryFoundListener indexEntryFoundListener) {
-    final List<IndexEntry> indexEntries =
-        IndexStringProcessor.processIndexString(indexString, contents);
-
-    for (final IndexEntry indexEntrie : indexEntries) {
-      indexEntryFoundListener.foundEntry(indexEntrie);
+  static Locale parseLocale(final String locale) {
+    if (locale.indexOf("-") == 2 || locale.indexOf("_") == 2) {
+      return new Locale(locale.substring(0, 2), locale.substring(3));
+    } else {
+      return new Locale(locale);
     }
+  }
 
-    return transformToNodes(indexEntries, targetDocument, null);
+  /** Create new namespace aware empty document. */
+  static Document newDocument() {
+    try {
+      final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      return factory.newDocumentBuilder().newDocument();
+    } catch (ParserConfigurationException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
   /**
@@ -281,18 +644,20 @@ public final class IndexPreprocessor {
    * @param targetDocument target document
    * @param indexEntryComparator comparator to sort the index entries. if it is null the index
    *     entries will be unsorted
+   * @param depth nesting depth of index entries, top level entries are at depth 1
    * @return nodes for the target document
    */
   private List<Node> transformToNodes(
-      final List<IndexEntry> indexEntries,
+      final Collection<IndexEntry> indexEntries,
       final Document targetDocument,
-      final Comparator<IndexEntry> indexEntryComparator) {
-    if (null != indexEntryComparator) {
-      indexEntries.sort(indexEntryComparator);
+      final IndexComparator indexEntryComparator,
+      final int depth) {
+    if (!indexEntries.isEmpty()) {
+      statistics.updateDepth(depth);
     }
 
     final List<Node> result = new ArrayList<>();
-    for (final IndexEntry indexEntry : indexEntries) {
+    for (final IndexEntry indexEntry : sort(indexEntries, indexEntryComparator)) {
       final Element indexEntryNode = createElement(targetDocument, ELEM_INDEX_ENTRY);
 
       final Element formattedStringElement = createElement(targetDocument, ELEM_FORMATTED_VALUE);
@@ -302,7 +667,7 @@ public final class IndexPreprocessor {
           final Node clone = targetDocument.importNode(child, true);
           if (!i.hasNext() && clone.getNodeType() == Node.TEXT_NODE) {
             final Text t = (Text) clone;
-            t.setData(t.getData().replaceAll("[\\s\\n]+$", ""));
+            t.setData(WhitespaceNormalizer.stripTrailing(t.getData()));
           }
           formattedStringElement.appendChild(clone);
         }
@@ -316,7 +681,7 @@ public final class IndexPreprocessor {
       final Set<String> refIDs = indexEntry.getRefIDs();
       for (final String refID : refIDs) {
         final Element referenceIDElement = createElement(targetDocument, ELEM_REF_ID);
-        referenceIDElement.setAttribute(ATTR_INDEXID, HASH_PREFIX + refID.hashCode());
+        referenceIDElement.setAttribute(ATTR_INDEXID, indexIdGenerator.get(symbols, refID));
         referenceIDElement.setAttribute(ATTR_VALUE, refID);
         indexEntryNode.appendChild(referenceIDElement);
       }
@@ -342,20 +707,18 @@ public final class IndexPreprocessor {
         indexEntryNode.setAttribute(ATTR_SINGLE_PAGE, "true");
       }
 
-      final List<IndexEntry> childIndexEntries = indexEntry.getChildIndexEntries();
-
       final List<Node> nodes =
-          transformToNodes(childIndexEntries, targetDocument, indexEntryComparator);
+          transformToNodes(indexEntry.children(), targetDocument, indexEntryComparator, depth + 1);
 
       for (final Node node : nodes) {
         indexEntryNode.appendChild(node);
       }
 
-      final List<IndexEntry> seeChildIndexEntries = indexEntry.getSeeChildIndexEntries();
-      if (seeChildIndexEntries != null && !seeChildIndexEntries.isEmpty()) {
+      final List<IndexEntry> seeChildIndexEntries = indexEntry.seeChildren();
+      if (!seeChildIndexEntries.isEmpty()) {
         final Element seeElement = createElement(targetDocument, ELEM_SEE_CHILDS);
         final List<Node> seeNodes =
-            transformToNodes(seeChildIndexEntries, targetDocument, indexEntryComparator);
+            transformToNodes(seeChildIndexEntries, targetDocument, indexEntryComparator, depth + 1);
         for (final Node node : seeNodes) {
           seeElement.appendChild(node);
         }
@@ -363,11 +726,12 @@ public final class IndexPreprocessor {
         indexEntryNode.appendChild(seeElement);
       }
 
-      final List<IndexEntry> seeAlsoChildIndexEntries = indexEntry.getSeeAlsoChildIndexEntries();
-      if (seeAlsoChildIndexEntries != null && !seeAlsoChildIndexEntries.isEmpty()) {
+      final List<IndexEntry> seeAlsoChildIndexEntries = indexEntry.seeAlsoChildren();
+      if (!seeAlsoChildIndexEntries.isEmpty()) {
         final Element seeAlsoElement = createElement(targetDocument, ELEM_SEE_ALSO_CHILDS);
         final List<Node> seeAlsoNodes =
-            transformToNodes(seeAlsoChildIndexEntries, targetDocument, indexEntryComparator);
+            transformToNodes(
+                seeAlsoChildIndexEntries, targetDocument, indexEntryComparator, depth + 1);
         for (final Node node : seeAlsoNodes) {
           seeAlsoElement.appendChild(node);
         }
@@ -380,6 +744,153 @@ public final class IndexPreprocessor {
     return result;
   }
 
+  /**
+   * Writes index entries. Writes the same events as {@link #transformToNodes(Collection, Document,
+   * IndexComparator, int)} followed by {@link XMLStreamUtils#writeNode(Node, XMLStreamWriter)}.
+   * Attributes are written in the order the DOM serialization uses, sorted by name.
+   *
+   * @param indexEntries index entries
+   * @param writer writer to write index entries to
+   * @param indexEntryComparator comparator to sort the index entries
+   * @param depth nesting depth of index entries, top level entries are at depth 1
+   */
+  private void writeIndexEntries(
+      final Collection<IndexEntry> indexEntries,
+      final XMLStreamWriter writer,
+      final IndexComparator indexEntryComparator,
+      final int depth)
+      throws XMLStreamException {
+    if (!indexEntries.isEmpty()) {
+      statistics.updateDepth(depth);
+    }
+
+    for (final IndexEntry indexEntry : sort(indexEntries, indexEntryComparator)) {
+      writeIndexEntry(indexEntry, writer, indexEntryComparator, depth);
+    }
+  }
+
+  /**
+   * Writes index entry and its child entries.
+   *
+   * @param indexEntry index entry
+   * @param writer writer to write index entry to
+   * @param indexEntryComparator comparator to sort the child entries
+   * @param depth nesting depth of index entry, top level entries are at depth 1
+   */
+  private void writeIndexEntry(
+      final IndexEntry indexEntry,
+      final XMLStreamWriter writer,
+      final IndexComparator indexEntryComparator,
+      final int depth)
+      throws XMLStreamException {
+    writeStartElement(writer, ELEM_INDEX_ENTRY, false);
+    if (!indexEntry.isStartingRange() && indexEntry.isEndingRange()) {
+      writer.writeAttribute(ATTR_END_RANGE, "true");
+    }
+    if (indexEntry.isSuppressesThePageNumber()) {
+      writer.writeAttribute(ATTR_NO_PAGE, "true");
+    } else if (indexEntry.isRestoresPageNumber()) {
+      writer.writeAttribute(ATTR_SINGLE_PAGE, "true");
+    }
+    final String sort = indexEntry.getSortString();
+    if (null != sort) {
+      writer.writeAttribute(ATTR_SORT_STRING, sort);
+    }
+    if (indexEntry.isStartingRange()) {
+      writer.writeAttribute(ATTR_START_RANGE, "true");
+    }
+    final String val = indexEntry.getValue();
+    if (null != val) {
+      writer.writeAttribute(ATTR_VALUE, val);
+    }
+
+    final List<Node> contents = indexEntry.getContents();
+    if (contents != null) {
+      writeStartElement(writer, ELEM_FORMATTED_VALUE, contents.isEmpty());
+      for (final Iterator<Node> i = contents.iterator(); i.hasNext(); ) {
+        final Node child = i.next();
+        if (!i.hasNext() && child.getNodeType() == Node.TEXT_NODE) {
+          writer.writeCharacters(WhitespaceNormalizer.stripTrailing(child.getNodeValue()));
+        } else {
+          XMLStreamUtils.writeNode(child, writer);
+        }
+      }
+      if (!contents.isEmpty()) {
+        writer.writeEndElement();
+      }
+    } else {
+      writeStartElement(writer, ELEM_FORMATTED_VALUE, false);
+      writer.writeCharacters(indexEntry.getFormattedString());
+      writer.writeEndElement();
+    }
+
+    for (final String refID : indexEntry.getRefIDs()) {
+      writeStartElement(writer, ELEM_REF_ID, true);
+      writer.writeAttribute(ATTR_INDEXID, indexIdGenerator.get(symbols, refID));
+      writer.writeAttribute(ATTR_VALUE, refID);
+    }
+
+    writeIndexEntries(indexEntry.children(), writer, indexEntryComparator, depth + 1);
+
+    final List<IndexEntry> seeChildIndexEntries = indexEntry.seeChildren();
+    if (!seeChildIndexEntries.isEmpty()) {
+      writeStartElement(writer, ELEM_SEE_CHILDS, false);
+      writeIndexEntries(seeChildIndexEntries, writer, indexEntryComparator, depth + 1);
+      writer.writeEndElement();
+    }
+
+    final List<IndexEntry> seeAlsoChildIndexEntries = indexEntry.seeAlsoChildren();
+    if (!seeAlsoChildIndexEntries.isEmpty()) {
+      writeStartElement(writer, ELEM_SEE_ALSO_CHILDS, false);
+      writeIndexEntries(seeAlsoChildIndexEntries, writer, indexEntryComparator, depth + 1);
+      writer.writeEndElement();
+    }
+
+    writer.writeEndElement();
+  }
+
+  /**
+   * Sort index entries by collation key. Entries are copied only if there is more than one of them
+   * to sort.
+   *
+   * @param indexEntries index entries, not modified
+   * @param indexEntryComparator comparator to sort the index entries, {@code null} to keep order
+   * @return index entries in sort order
+   */
+  private Collection<IndexEntry> sort(
+      final Collection<IndexEntry> indexEntries, final IndexComparator indexEntryComparator) {
+    if (indexEntryComparator == null || indexEntries.size() < 2) {
+      return indexEntries;
+    }
+    statistics.start(IndexStatistics.Phase.SORT);
+    final List<IndexEntry> sorted = indexEntryComparator.sort(indexEntries);
+    statistics.stop(IndexStatistics.Phase.SORT);
+    return sorted;
+  }
+
+  /**
+   * Writes start of element with "prefix" in "namespace_url" and declares the namespace if it is
+   * not bound in the writer's namespace context.
+   *
+   * @param writer writer
+   * @param name local name
+   * @param empty write empty element
+   */
+  private void writeStartElement(
+      final XMLStreamWriter writer, final String name, final boolean empty)
+      throws XMLStreamException {
+    // writing the start tag binds the prefix in the writer's context, so check before it
+    final boolean bound = namespaceUrl.equals(writer.getNamespaceContext().getNamespaceURI(prefix));
+    if (empty) {
+      writer.writeEmptyElement(prefix, name, namespaceUrl);
+    } else {
+      writer.writeStartElement(prefix, name, namespaceUrl);
+    }
+    if (!bound) {
+      writer.writeNamespace(prefix, namespaceUrl);
+    }
+  }
+
   /**
    * Creates element with "prefix" in "namespace_url" with given name for the target document
    *
@@ -392,4 +903,132 @@ public final class IndexPreprocessor {
     indexEntryNode.setPrefix(prefix);
     return indexEntryNode;
   }
+
+  /**
+   * Reads index terms of top-level topics in parallel. The document walk copies index term
+   * elements to a document of their top-level topic and appends placeholders for them to the
+   * output. A topic is submitted to the extraction pool when the walk leaves it. Entries are merged
+   * and placeholders replaced in document order.
+   */
+  private final class ParallelExtraction {
+    private final DOMImplementation implementation;
+    private final List<TopicTerms> topicTerms = new ArrayList<>();
+    private int topicDepth;
+    private TopicTerms current;
+
+    ParallelExtraction(final DOMImplementation implementation) {
+      this.implementation = implementation;
+    }
+
+    void startTopic() {
+      if (topicDepth++ == 0) {
+        submit();
+      }
+    }
+
+    void endTopic() {
+      if (--topicDepth == 0) {
+        submit();
+      }
+    }
+
+    /**
+     * Add index term element.
+     *
+     * @param indexTerm index term element in the source document
+     * @param placeholder output node to replace with processed index term
+     */
+    void add(final Node indexTerm, final Node placeholder) {
+      if (current == null) {
+        current = new TopicTerms(implementation.createDocument(null, null, null));
+      }
+      current.indexTerms.add(current.document.importNode(indexTerm, true));
+      current.placeholders.add(placeholder);
+    }
+
+    /** Start reading index terms added after the previous submit. */
+    private void submit() {
+      if (current != null) {
+        current.task = extractionPool.submit(current::read);
+        topicTerms.add(current);
+        current = null;
+      }
+    }
+
+    /**
+     * Wait for index terms to be read, notify listener of entries and replace placeholders in
+     * document order.
+     */
+    void merge(final Document targetDocument, final IndexEntryFoundListener listener) {
+      submit();
+      for (final TopicTerms terms : topicTerms) {
+        final List<List<IndexEntry>> entries = terms.task.join();
+        for (int i = 0; i < entries.size(); i++) {
+          final List<IndexEntry> indexEntries = entries.get(i);
+          for (final IndexEntry indexEntry : indexEntries) {
+            listener.foundEntry(indexEntry);
+          }
+          final Node placeholder = terms.placeholders.get(i);
+          final Node parent = placeholder.getParentNode();
+          for (final Node node : transformToNodes(indexEntries, targetDocument, null, 1)) {
+            parent.insertBefore(node, placeholder);
+          }
+          parent.removeChild(placeholder);
+        }
+      }
+    }
+  }
+
+  /** Copies of index term elements of a top-level topic, owned by a document private to them. */
+  private final class TopicTerms {
+    private final Document document;
+    private final List<Node> indexTerms = new ArrayList<>();
+    private final List<Node> placeholders = new ArrayList<>();
+    private ForkJoinTask<List<List<IndexEntry>>> task;
+
+    TopicTerms(final Document document) {
+      this.document = document;
+    }
+
+    List<List<IndexEntry>> read() {
+      final List<List<IndexEntry>> res = new ArrayList<>(indexTerms.size());
+      for (final Node indexTerm : indexTerms) {
+        indexTerm.normalize();
+        res.add(readIndexEntries(indexTerm));
+      }
+      return res;
+    }
+  }
+
+  /** Index term extraction state of a topic. */
+  private final class TopicExtraction {
+    private final String key;
+    /** Cached index terms, {@code null} if the topic is not cached. */
+    private final List<CachedIndexTerm> cached;
+    /** Recorder for index terms read from the topic, {@code null} if they are not stored. */
+    private Recorder recorder;
+
+    private int position;
+
+    TopicExtraction(final String key, final List<CachedIndexTerm> cached) {
+      this.key = key;
+      this.cached = cached;
+      this.recorder = cached == null ? new Recorder() : null;
+    }
+
+    List<IndexEntry> readIndexEntries(final Node node) {
+      if (cached != null && position < cached.size()) {
+        return cached.get(position++).toIndexEntries(node, getEntrySymbols());
+      }
+      final List<IndexEntry> indexEntries = IndexPreprocessor.this.readIndexEntries(node);
+      if (recorder != null) {
+        try {
+          recorder.add(node, indexEntries);
+        } catch (final IOException e) {
+          recorder = null;
+        }
+      }
+      return indexEntries;
+    }
+  }
 }
@@ -0,0 +1,233 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.index.configuration.IndexConfiguration;
+import org.dita.index.configuration.IndexConfigurationCache;
+import org.dita.index.configuration.ParseException;
+import org.slf4j.Marker;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.LegacyAbstractLogger;
+import org.slf4j.helpers.MessageFormatter;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentType;
+import org.xml.sax.SAXException;
+
+/**
+ * Command line entry point for index preprocessing. Processes a single merged map in DOM mode
+ * like {@link IndexPreprocessorTask}, but without starting Ant.
+ *
+ * <p>Usage: {@code IndexPreprocessorMain --input <file> --output <file> --locale <locale> --config
+ * <file> [--draft]}
+ *
+ * <p>Exit status is {@code 0} on success, {@code 1} if processing fails and {@code 2} for invalid
+ * arguments.
+ */
+public final class IndexPreprocessorMain {
+
+  private static final String USAGE =
+      "Usage: IndexPreprocessorMain --input <file> --output <file> --locale <locale>"
+          + " --config <file> [--draft]";
+
+  private IndexPreprocessorMain() {}
+
+  public static void main(final String[] args) {
+    System.exit(run(args, System.err));
+  }
+
+  /**
+   * Run index preprocessing.
+   *
+   * @param args command line arguments
+   * @param err stream for messages
+   * @return exit status
+   */
+  static int run(final String[] args, final PrintStream err) {
+    File input = null;
+    File output = null;
+    Locale locale = null;
+    File config = null;
+    boolean draft = false;
+    try {
+      for (int i = 0; i < args.length; i++) {
+        switch (args[i]) {
+          case "--input":
+            input = new File(value(args, ++i));
+            break;
+          case "--output":
+            output = new File(value(args, ++i));
+            break;
+          case "--locale":
+            locale = IndexPreprocessor.parseLocale(value(args, ++i));
+            break;
+          case "--config":
+            config = new File(value(args, ++i));
+            break;
+          case "--draft":
+            draft = true;
+            break;
+          default:
+            throw new IllegalArgumentException("Unsupported argument " + args[i]);
+        }
+      }
+      if (input == null || output == null || locale == null || config == null) {
+        throw new IllegalArgumentException("input, output, locale and config are required");
+      }
+    } catch (final IllegalArgumentException e) {
+      err.println(e.getMessage());
+      err.println(USAGE);
+      return 2;
+    }
+
+    try {
+      process(input, output, locale, config, draft, new ConsoleLogger(err));
+    } catch (final IOException
+        | SAXException
+        | ParseException
+        | ParserConfigurationException
+        | TransformerException e) {
+      err.println("Failed to process " + input + ": " + e.getMessage());
+      return 1;
+    }
+    return 0;
+  }
+
+  private static String value(final String[] args, final int i) {
+    if (i >= args.length) {
+      throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+    }
+    return args[i];
+  }
+
+  private static void process(
+      final File input,
+      final File output,
+      final Locale locale,
+      final File config,
+      final boolean draft,
+      final DITAOTLogger logger)
+      throws IOException, SAXException, ParseException, ParserConfigurationException,
+          TransformerException {
+    final IndexConfiguration configuration = IndexConfigurationCache.getInstance().get(config);
+    final File outputDir = output.getAbsoluteFile().getParentFile();
+    if (!outputDir.exists() && !outputDir.mkdirs() && !outputDir.exists()) {
+      throw new IOException("Failed to create directory " + outputDir);
+    }
+
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    final IndexPreprocessor preprocessor =
+        new IndexPreprocessor(
+            IndexPreprocessorTask.PREFIX, IndexPreprocessorTask.NAMESPACE_URL, draft);
+    preprocessor.setLogger(logger);
+    final IndexPreprocessResult result =
+        preprocessor.process(factory.newDocumentBuilder().parse(input));
+    final Document doc = result.document;
+    preprocessor.createAndAddIndexGroups(result.indexEntries, configuration, doc, locale);
+
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output))) {
+      final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+      transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
+      transformer.setOutputProperty(OutputKeys.INDENT, "no");
+      transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+      transformer.setOutputProperty(OutputKeys.STANDALONE, "yes");
+      final DocumentType doctype = doc.getDoctype();
+      if (doctype != null) {
+        if (null != doctype.getPublicId()) {
+          transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doctype.getPublicId());
+        }
+        if (null != doctype.getSystemId()) {
+          transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doctype.getSystemId());
+        }
+      }
+      transformer.transform(new DOMSource(doc), new StreamResult(out));
+    }
+  }
+
+  /** Logger that writes info, warning and error messages to a stream. */
+  private static final class ConsoleLogger extends LegacyAbstractLogger implements DITAOTLogger {
+
+    private final PrintStream out;
+
+    ConsoleLogger(final PrintStream out) {
+      this.out = out;
+      this.name = IndexPreprocessorMain.class.getName();
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+      return false;
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+      return false;
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+      return true;
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+      return true;
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+      return true;
+    }
+
+    @Override
+    protected String getFullyQualifiedCallerName() {
+      return null;
+    }
+
+    @Override
+    protected void handleNormalizedLoggingCall(
+        final Level level,
+        final Marker marker,
+        final String messagePattern,
+        final Object[] arguments,
+        final Throwable throwable) {
+      final String msg = MessageFormatter.basicArrayFormat(messagePattern, arguments);
+      switch (level) {
+        case ERROR:
+          out.println("Error: " + msg);
+          break;
+        case WARN:
+          out.println("Warning: " + msg);
+          break;
+        default:
+          out.println(msg);
+          break;
+      }
+      if (throwable != null) {
+        throwable.printStackTrace(out);
+      }
+    }
+  }
+}
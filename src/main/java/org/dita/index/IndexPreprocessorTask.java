@@ -31,97 +31,362 @@ See the accompanying LICENSE file for applicable license.
 
 package org.dita.index;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
-import javax.xml.parsers.DocumentBuilder;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import net.sf.saxon.om.TreeModel;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.Serializer;
+import net.sf.saxon.s9api.XdmNode;
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.Task;
+import org.apache.tools.ant.types.FileSet;
+import org.apache.tools.ant.types.Mapper;
+import org.apache.tools.ant.util.FileNameMapper;
+import org.apache.tools.ant.util.IdentityMapper;
 import org.dita.dost.log.DITAOTAntLogger;
+import org.dita.dost.log.MessageUtils;
+import org.dita.index.IndexStatistics.Phase;
 import org.dita.index.configuration.IndexConfiguration;
+import org.dita.index.configuration.IndexConfigurationCache;
 import org.dita.index.configuration.ParseException;
 import org.w3c.dom.Document;
+import org.w3c.dom.DocumentType;
 import org.xml.sax.SAXException;
 
 public class IndexPreprocessorTask extends Task {
 
-  private static final String PREFIX = "opentopic-index";
-  private static final String NAMESPACE_URL = "http://www.idiominc.com/opentopic/index";
-
-  public static boolean failOnError = false;
-  public static boolean processingFaild = false;
+  static final String PREFIX = "opentopic-index";
+  static final String NAMESPACE_URL = "http://www.idiominc.com/opentopic/index";
+  private static final String XML_DECLARATION =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+  private static final String STATISTICS_PROPERTY_PREFIX = "ws.runtime.index.preprocess.";
 
   private File input;
   private File output;
   private Locale locale;
   private File indexConfig;
   private boolean draft;
+  private boolean failOnError;
+  private Mode mode = Mode.DOM;
+  private int threads = 1;
+  private IndexIdGenerator.Hash indexIdHash = IndexIdGenerator.Hash.STRING;
+  private boolean checkIndexIds;
+  private int spillThreshold;
+  private File destDir;
+  private File cacheDir;
+  private File statisticsFile;
+  private File indexFile;
+  /** Pool for reading index terms of a single job in parallel, {@code null} to read in order. */
+  private ForkJoinPool extractionPool;
+  private final List<Job> jobs = new ArrayList<>();
+  private final List<FileSet> filesets = new ArrayList<>();
+  private Mapper mapper;
 
   @Override
   public void execute() throws BuildException {
-    checkParameters();
+    if (jobs.isEmpty() && filesets.isEmpty()) {
+      final Job job = new Job();
+      job.input = input;
+      job.output = output;
+      job.indexFile = indexFile;
+      final IndexStatistics statistics = new IndexStatistics();
+      if (threads > 1) {
+        extractionPool = new ForkJoinPool(threads);
+      }
+      try {
+        if (!process(resolve(job), statistics)) {
+          setActiveProjectProperty("ws.runtime.index.preprocess.fail", "true");
+        }
+      } finally {
+        if (extractionPool != null) {
+          extractionPool.shutdownNow();
+          extractionPool = null;
+        }
+      }
+      report(statistics);
+    } else {
+      processBatch(getJobs());
+    }
+  }
 
-    final DocumentBuilder documentBuilder;
-    try {
-      final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      factory.setNamespaceAware(true);
-      documentBuilder = factory.newDocumentBuilder();
-    } catch (ParserConfigurationException e) {
-      throw new BuildException(e);
+  /** Collect nested jobs and jobs from file sets. */
+  private List<Job> getJobs() {
+    final List<Job> res = new ArrayList<>();
+    for (final Job job : jobs) {
+      res.add(resolve(job));
     }
+    if (!filesets.isEmpty()) {
+      if (destDir == null) {
+        throw new BuildException("destDir attribute is required with nested filesets");
+      }
+      final FileNameMapper fileNameMapper =
+          mapper != null ? mapper.getImplementation() : new IdentityMapper();
+      for (final FileSet fileset : filesets) {
+        final File dir = fileset.getDir(getProject());
+        for (final String name : fileset.getDirectoryScanner(getProject()).getIncludedFiles()) {
+          final String[] mapped = fileNameMapper.mapFileName(name);
+          if (mapped != null && mapped.length > 0) {
+            final Job job = new Job();
+            job.input = new File(dir, name);
+            job.output = new File(destDir, mapped[0]);
+            res.add(resolve(job));
+          }
+        }
+      }
+    }
+    return res;
+  }
 
-    final Document doc;
+  /** Fill in job parameters that are not set from task attributes and check required ones. */
+  private Job resolve(final Job job) {
+    if (job.locale == null) {
+      job.locale = locale;
+    }
+    if (job.indexConfig == null) {
+      job.indexConfig = indexConfig;
+    }
+    if (job.draft == null) {
+      job.draft = draft;
+    }
+    if (null == job.locale || null == job.input || null == job.output || null == job.indexConfig) {
+      throw new BuildException("locale, indexConfig, input, output attributes are required");
+    }
+    return job;
+  }
+
+  /**
+   * Run jobs on a worker pool. All jobs are run even if some of them fail, failures are logged and
+   * reported after all jobs have finished.
+   */
+  private void processBatch(final List<Job> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, batch.size()));
     try {
-      doc = documentBuilder.parse(input);
-    } catch (SAXException | IOException e) {
+      final List<Future<Boolean>> futures = new ArrayList<>(batch.size());
+      final List<IndexStatistics> jobStatistics = new ArrayList<>(batch.size());
+      for (final Job job : batch) {
+        final IndexStatistics statistics = new IndexStatistics();
+        jobStatistics.add(statistics);
+        futures.add(executor.submit(() -> process(job, statistics)));
+      }
+      int failed = 0;
+      boolean processingFailed = false;
+      IndexStatistics statistics = null;
+      for (int i = 0; i < batch.size(); i++) {
+        try {
+          if (!futures.get(i).get()) {
+            processingFailed = true;
+          }
+          if (statistics == null) {
+            statistics = jobStatistics.get(i);
+          } else {
+            statistics.merge(jobStatistics.get(i));
+          }
+        } catch (final ExecutionException e) {
+          failed++;
+          log(
+              "Failed to process " + batch.get(i).input + ": " + e.getCause().getMessage(),
+              e.getCause(),
+              Project.MSG_ERR);
+        }
+      }
+      if (processingFailed) {
+        setActiveProjectProperty("ws.runtime.index.preprocess.fail", "true");
+      }
+      if (statistics != null) {
+        report(statistics);
+      }
+      if (failed > 0) {
+        throw new BuildException(
+            "Failed to process " + failed + " of " + batch.size() + " index preprocessing jobs");
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
       throw new BuildException(e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Set statistics properties and write statistics file.
+   *
+   * @param statistics statistics of successful jobs
+   */
+  private void report(final IndexStatistics statistics) {
+    for (final Map.Entry<String, Long> e : statistics.toMap().entrySet()) {
+      setActiveProjectProperty(STATISTICS_PROPERTY_PREFIX + e.getKey(), e.getValue().toString());
+    }
+    log(
+        "Index preprocessing statistics: " + statistics.toMap().toString(), Project.MSG_VERBOSE);
+    if (statisticsFile != null) {
+      try {
+        final File dir = statisticsFile.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+          throw new IOException("Failed to create directory " + dir);
+        }
+        Files.write(statisticsFile.toPath(), statistics.toJson().getBytes(StandardCharsets.UTF_8));
+      } catch (final IOException e) {
+        throw new BuildException("Failed to write statistics file: " + e.getMessage(), e);
+      }
     }
+  }
 
+  /**
+   * Process single job.
+   *
+   * @param statistics statistics to record job phases in
+   * @return {@code false} if index entries were dropped and the task is set to fail on error
+   */
+  private boolean process(final Job job, final IndexStatistics statistics) {
     final IndexConfiguration configuration;
     try {
-      final Document configDocument = documentBuilder.parse(indexConfig);
-      configuration = IndexConfiguration.parse(configDocument);
+      configuration = IndexConfigurationCache.getInstance().get(job.indexConfig);
     } catch (ParseException | SAXException | IOException e) {
       throw new BuildException(e);
     }
+    final File outputDir = job.output.getAbsoluteFile().getParentFile();
+    if (!outputDir.exists() && !outputDir.mkdirs() && !outputDir.exists()) {
+      throw new BuildException("Failed to create directory " + outputDir);
+    }
+
+    if (cacheDir != null && mode != Mode.DOM) {
+      log("Index extraction cache is only used in dom mode", Project.MSG_VERBOSE);
+    }
+    if (spillThreshold > 0 && mode != Mode.STREAM) {
+      log("Index entries are only spilled in stream mode", Project.MSG_VERBOSE);
+    }
+
+    final Collection<IndexEntry> uncategorizedEntries;
+    try (IndexWriter indexWriter = job.indexFile != null ? new IndexWriter(job.indexFile) : null) {
+      final XMLStreamWriter indexGroupsWriter = indexWriter != null ? indexWriter.writer : null;
+      switch (mode) {
+        case STREAM:
+          uncategorizedEntries = processStream(job, configuration, statistics, indexGroupsWriter);
+          break;
+        case SAXON:
+          uncategorizedEntries = processSaxon(job, configuration, statistics, indexGroupsWriter);
+          break;
+        case COPY:
+          uncategorizedEntries = processCopy(job, configuration, statistics, indexGroupsWriter);
+          break;
+        default:
+          uncategorizedEntries =
+              processDocument(job, configuration, statistics, indexGroupsWriter);
+          break;
+      }
+    } catch (final IOException | XMLStreamException e) {
+      throw new BuildException("Failed to write index file: " + e.getMessage(), e);
+    }
+    if (failOnError && !uncategorizedEntries.isEmpty()) {
+      new DITAOTAntLogger(getProject()).error(MessageUtils.getMessage("INDX003E").toString());
+      return false;
+    }
+    return true;
+  }
+
+  private Collection<IndexEntry> processDocument(
+      final Job job,
+      final IndexConfiguration configuration,
+      final IndexStatistics statistics,
+      final XMLStreamWriter indexGroupsWriter) {
+    Document doc;
+    statistics.start(Phase.PARSE);
+    try {
+      final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      doc = factory.newDocumentBuilder().parse(job.input);
+    } catch (ParserConfigurationException | SAXException | IOException e) {
+      throw new BuildException(e);
+    }
+    statistics.stop(Phase.PARSE);
 
-    final IndexPreprocessor preprocessor = new IndexPreprocessor(PREFIX, NAMESPACE_URL, draft);
+    final IndexPreprocessor preprocessor =
+        new IndexPreprocessor(PREFIX, NAMESPACE_URL, job.draft);
     preprocessor.setLogger(new DITAOTAntLogger(getProject()));
+    preprocessor.setStatistics(statistics);
+    preprocessor.setIndexIdGenerator(createIndexIdGenerator());
+    if (cacheDir != null) {
+      preprocessor.setExtractionCache(new IndexExtractionCache(cacheDir));
+    }
+    preprocessor.setExtractionPool(extractionPool);
 
+    statistics.start(Phase.EXTRACT);
     final IndexPreprocessResult result = preprocessor.process(doc);
+    statistics.stop(Phase.EXTRACT);
+    // release input document before grouping, result does not reference it
+    doc = null;
     final Document resultDoc = result.document;
 
     final Collection<IndexEntry> indexEntries = result.indexEntries;
-    preprocessor.createAndAddIndexGroups(indexEntries, configuration, resultDoc, locale);
-    if (processingFaild) {
-      setActiveProjectProperty("ws.runtime.index.preprocess.fail", "true");
+    final Collection<IndexEntry> uncategorizedEntries;
+    if (indexGroupsWriter != null) {
+      final IndexGroupProcessResult groups =
+          preprocessor.groupIndexEntries(indexEntries, configuration, job.locale);
+      try {
+        preprocessor.writeIndexGroups(groups.indexGroups, job.locale, indexGroupsWriter);
+      } catch (final XMLStreamException e) {
+        throw new BuildException(e);
+      }
+      uncategorizedEntries = groups.uncategorizedEntries;
+    } else {
+      uncategorizedEntries =
+          preprocessor.createAndAddIndexGroups(indexEntries, configuration, resultDoc, job.locale);
     }
 
     // Serialize processed document
-    try (OutputStream out = new FileOutputStream(output)) {
+    statistics.start(Phase.SERIALIZE);
+    try (OutputStream out = new FileOutputStream(job.output)) {
       final TransformerFactory transformerFactory = TransformerFactory.newInstance();
       final Transformer transformer = transformerFactory.newTransformer();
       transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
       transformer.setOutputProperty(OutputKeys.INDENT, "no");
       transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
       transformer.setOutputProperty(OutputKeys.STANDALONE, "yes");
-      if (doc.getDoctype() != null) {
-        if (null != doc.getDoctype().getPublicId()) {
-          transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doc.getDoctype().getPublicId());
+      final DocumentType doctype = resultDoc.getDoctype();
+      if (doctype != null) {
+        if (null != doctype.getPublicId()) {
+          transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doctype.getPublicId());
         }
-        if (null != doc.getDoctype().getSystemId()) {
-          transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doc.getDoctype().getSystemId());
+        if (null != doctype.getSystemId()) {
+          transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doctype.getSystemId());
         }
       }
 
@@ -131,14 +396,127 @@ public class IndexPreprocessorTask extends Task {
     } catch (final Exception e) {
       throw new BuildException(e);
     }
+    statistics.stop(Phase.SERIALIZE);
+    return uncategorizedEntries;
   }
 
-  private void checkParameters() throws BuildException {
-    if (null == locale || null == input || null == output || null == indexConfig) {
-      throw new BuildException("locale, indexConfig, input, output attributes are required");
+  /** Create index ID generator for a single job. */
+  private IndexIdGenerator createIndexIdGenerator() {
+    return new IndexIdGenerator(indexIdHash, checkIndexIds, new DITAOTAntLogger(getProject()));
+  }
+
+  private Collection<IndexEntry> processStream(
+      final Job job,
+      final IndexConfiguration configuration,
+      final IndexStatistics statistics,
+      final XMLStreamWriter indexGroupsWriter) {
+    final IndexStreamPreprocessor preprocessor =
+        new IndexStreamPreprocessor(PREFIX, NAMESPACE_URL, job.draft);
+    preprocessor.setLogger(new DITAOTAntLogger(getProject()));
+    preprocessor.setStatistics(statistics);
+    preprocessor.setIndexIdGenerator(createIndexIdGenerator());
+    preprocessor.setIndexGroupsWriter(indexGroupsWriter);
+    preprocessor.setSpillThreshold(spillThreshold);
+    preprocessor.setSpillDir(job.output.getAbsoluteFile().getParentFile());
+
+    XMLStreamReader reader = null;
+    try (InputStream in = new BufferedInputStream(new FileInputStream(job.input));
+        Writer out =
+            new BufferedWriter(
+                new OutputStreamWriter(
+                    new FileOutputStream(job.output), StandardCharsets.UTF_8))) {
+      reader =
+          XMLInputFactory.newInstance().createXMLStreamReader(job.input.toURI().toString(), in);
+      out.write(XML_DECLARATION);
+      final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+      statistics.start(Phase.EXTRACT);
+      final IndexPreprocessResult result =
+          preprocessor.process(reader, writer, configuration, job.locale);
+      statistics.stop(Phase.EXTRACT);
+      return result.uncategorizedEntries;
+    } catch (final IOException | XMLStreamException e) {
+      throw new BuildException(e);
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (final XMLStreamException e) {
+          // ignore
+        }
+      }
     }
   }
 
+  private Collection<IndexEntry> processSaxon(
+      final Job job,
+      final IndexConfiguration configuration,
+      final IndexStatistics statistics,
+      final XMLStreamWriter indexGroupsWriter) {
+    final Processor processor = new Processor(false);
+    final IndexSaxonPreprocessor preprocessor =
+        new IndexSaxonPreprocessor(processor, PREFIX, NAMESPACE_URL, job.draft);
+    preprocessor.setLogger(new DITAOTAntLogger(getProject()));
+    preprocessor.setStatistics(statistics);
+    preprocessor.setIndexIdGenerator(createIndexIdGenerator());
+    preprocessor.setIndexGroupsWriter(indexGroupsWriter);
+
+    final XdmNode doc;
+    statistics.start(Phase.PARSE);
+    try {
+      final net.sf.saxon.s9api.DocumentBuilder documentBuilder = processor.newDocumentBuilder();
+      documentBuilder.setTreeModel(TreeModel.TINY_TREE);
+      doc = documentBuilder.build(job.input);
+    } catch (final SaxonApiException e) {
+      throw new BuildException(e);
+    }
+    statistics.stop(Phase.PARSE);
+
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(job.output))) {
+      final Serializer serializer = processor.newSerializer(out);
+      serializer.setOutputProperty(Serializer.Property.METHOD, "xml");
+      serializer.setOutputProperty(Serializer.Property.OMIT_XML_DECLARATION, "no");
+      serializer.setOutputProperty(Serializer.Property.INDENT, "no");
+      serializer.setOutputProperty(Serializer.Property.ENCODING, "UTF-8");
+      serializer.setOutputProperty(Serializer.Property.STANDALONE, "yes");
+      final XMLStreamWriter writer = serializer.getXMLStreamWriter();
+      statistics.start(Phase.EXTRACT);
+      final IndexPreprocessResult result =
+          preprocessor.process(doc, writer, configuration, job.locale);
+      writer.close();
+      statistics.stop(Phase.EXTRACT);
+      return result.uncategorizedEntries;
+    } catch (final IOException | XMLStreamException | SaxonApiException e) {
+      throw new BuildException(e);
+    }
+  }
+
+  private Collection<IndexEntry> processCopy(
+      final Job job,
+      final IndexConfiguration configuration,
+      final IndexStatistics statistics,
+      final XMLStreamWriter indexGroupsWriter) {
+    final IndexCopyPreprocessor preprocessor =
+        new IndexCopyPreprocessor(PREFIX, NAMESPACE_URL, job.draft);
+    preprocessor.setLogger(new DITAOTAntLogger(getProject()));
+    preprocessor.setStatistics(statistics);
+    preprocessor.setIndexIdGenerator(createIndexIdGenerator());
+    preprocessor.setIndexGroupsWriter(indexGroupsWriter);
+
+    final IndexPreprocessResult result;
+    statistics.start(Phase.EXTRACT);
+    try {
+      result = preprocessor.process(job.input, job.output, configuration, job.locale);
+    } catch (final IOException | XMLStreamException e) {
+      throw new BuildException(e);
+    }
+    statistics.stop(Phase.EXTRACT);
+    if (result == null) {
+      log("Input cannot be copied, using stream mode", Project.MSG_VERBOSE);
+      return processStream(job, configuration, statistics, indexGroupsWriter);
+    }
+    return result.uncategorizedEntries;
+  }
+
   public void setInput(final File input) {
     this.input = input;
   }
@@ -148,11 +526,7 @@ public class IndexPreprocessorTask extends Task {
   }
 
   public void setLocale(final String locale) {
-    if (locale.indexOf("-") == 2 || locale.indexOf("_") == 2) {
-      this.locale = new Locale(locale.substring(0, 2), locale.substring(3));
-    } else {
-      this.locale = new Locale(locale);
-    }
+    this.locale = IndexPreprocessor.parseLocale(locale);
   }
 
   public void setIndexConfig(final File indexConfig) {
@@ -160,13 +534,244 @@ public class IndexPreprocessorTask extends Task {
   }
 
   public void setFailOnError(final boolean failOnError) {
-    IndexPreprocessorTask.failOnError = failOnError;
+    this.failOnError = failOnError;
   }
 
   public void setDraft(final boolean draftValue) {
     this.draft = draftValue;
   }
 
+  /**
+   * Set processing mode.
+   *
+   * <ul>
+   *   <li>{@code dom}: build a DOM of the whole input document, the default
+   *   <li>{@code stream}: stream input to output and only keep index terms and index entries in
+   *       memory
+   *   <li>{@code saxon}: build a Saxon TinyTree of the input document and serialize with Saxon
+   *   <li>{@code copy}: copy input markup to output as is and only serialize index entries, falls
+   *       back to {@code stream} for input with a document type declaration or in an encoding
+   *       other than UTF-8 or UTF-16
+   * </ul>
+   *
+   * @param mode processing mode name
+   */
+  public void setMode(final String mode) {
+    try {
+      this.mode = Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+    } catch (final IllegalArgumentException e) {
+      throw new BuildException("Unsupported mode " + mode);
+    }
+  }
+
+  /**
+   * Set number of worker threads used to run nested jobs. With a single job in DOM mode, index
+   * terms of top-level topics are read in parallel instead. Defaults to 1.
+   *
+   * @param threads number of worker threads
+   */
+  public void setThreads(final int threads) {
+    if (threads < 1) {
+      throw new BuildException("threads must be a positive number");
+    }
+    this.threads = threads;
+  }
+
+  /**
+   * Set hash used to generate {@code indexid} attribute values from refIDs. Supported values are
+   *
+   * <ul>
+   *   <li>{@code string}: 32-bit Java string hash code, default
+   *   <li>{@code fingerprint64}: 64-bit fingerprint, far fewer collisions on large indexes
+   * </ul>
+   *
+   * @param indexIdHash hash name
+   */
+  public void setIndexIdHash(final String indexIdHash) {
+    try {
+      this.indexIdHash = IndexIdGenerator.Hash.valueOf(indexIdHash.toUpperCase(Locale.ROOT));
+    } catch (final IllegalArgumentException e) {
+      throw new BuildException("Unsupported index ID hash " + indexIdHash);
+    }
+  }
+
+  /**
+   * Set whether to report refIDs that have the same index ID. Defaults to {@code false}.
+   *
+   * @param checkIndexIds report index ID collisions
+   */
+  public void setCheckIndexIds(final boolean checkIndexIds) {
+    this.checkIndexIds = checkIndexIds;
+  }
+
+  /**
+   * Set number of index entries kept in memory in {@code stream} mode. When the threshold is
+   * reached, index entries are sorted and spilled to temporary files in the output directory, and
+   * merged from the files when index groups are written. Defaults to 0, all index entries are kept
+   * in memory.
+   *
+   * <p>With spilling, memory use grows with the number of distinct top-level index entries. Index
+   * IDs of refIDs are also kept in memory if a hash other than {@code string} is used or index ID
+   * collisions are checked.
+   *
+   * @param spillThreshold number of index entries, 0 to disable spilling
+   */
+  public void setSpillThreshold(final int spillThreshold) {
+    if (spillThreshold < 0) {
+      throw new BuildException("spillThreshold must not be negative");
+    }
+    this.spillThreshold = spillThreshold;
+  }
+
+  /**
+   * Set output directory for jobs created from nested file sets.
+   *
+   * @param destDir output directory
+   */
+  public void setDestDir(final File destDir) {
+    this.destDir = destDir;
+  }
+
+  /**
+   * Set directory for cached index entries of topics. Index terms of topics that have not changed
+   * since they were cached are not read again. Only used in {@code dom} mode.
+   *
+   * @param cacheDir cache directory, empty string to disable caching
+   */
+  public void setCacheDir(final String cacheDir) {
+    this.cacheDir = cacheDir.isEmpty() ? null : getProject().resolveFile(cacheDir);
+  }
+
+  /**
+   * Set file to write index preprocessing statistics to as JSON. Statistics are always set as
+   * {@code ws.runtime.index.preprocess.*} properties.
+   *
+   * @param statisticsFile statistics file, empty string to not write statistics file
+   */
+  public void setStatisticsFile(final String statisticsFile) {
+    this.statisticsFile =
+        statisticsFile.isEmpty() ? null : getProject().resolveFile(statisticsFile);
+  }
+
+  /**
+   * Set file to write index groups to. Index groups are written as the root element of the file
+   * instead of appending them to the root element of output, index terms in output are still
+   * replaced with index entries. Only used when there are no nested jobs or file sets.
+   *
+   * @param indexFile index file, empty string to append index groups to output
+   */
+  public void setIndexFile(final String indexFile) {
+    this.indexFile = indexFile.isEmpty() ? null : getProject().resolveFile(indexFile);
+  }
+
+  /**
+   * Create nested job. Job attributes that are not set are inherited from the task.
+   *
+   * @return new job
+   */
+  public Job createJob() {
+    final Job job = new Job();
+    jobs.add(job);
+    return job;
+  }
+
+  /**
+   * Add file set of input documents. Output files are written to the output directory, mapped with
+   * the nested mapper or the identity mapper.
+   *
+   * @param fileset input file set
+   */
+  public void addFileset(final FileSet fileset) {
+    filesets.add(fileset);
+  }
+
+  /**
+   * Create mapper from input file names to output file names.
+   *
+   * @return new mapper
+   */
+  public Mapper createMapper() {
+    if (mapper != null) {
+      throw new BuildException("Only one mapper is allowed");
+    }
+    mapper = new Mapper(getProject());
+    return mapper;
+  }
+
+  /** Index preprocessing job for a single input document. */
+  public static class Job {
+    private File input;
+    private File output;
+    private Locale locale;
+    private File indexConfig;
+    private Boolean draft;
+    private File indexFile;
+
+    public void setInput(final File input) {
+      this.input = input;
+    }
+
+    public void setOutput(final File output) {
+      this.output = output;
+    }
+
+    public void setLocale(final String locale) {
+      this.locale = IndexPreprocessor.parseLocale(locale);
+    }
+
+    public void setIndexConfig(final File indexConfig) {
+      this.indexConfig = indexConfig;
+    }
+
+    public void setDraft(final boolean draft) {
+      this.draft = draft;
+    }
+
+    /**
+     * Set file to write index groups to. Not inherited from the task.
+     *
+     * @param indexFile index file
+     */
+    public void setIndexFile(final File indexFile) {
+      this.indexFile = indexFile;
+    }
+  }
+
+  /** Separate output document for index groups. */
+  private static final class IndexWriter implements AutoCloseable {
+    private final Writer out;
+    final XMLStreamWriter writer;
+
+    IndexWriter(final File file) throws IOException, XMLStreamException {
+      final File dir = file.getAbsoluteFile().getParentFile();
+      if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+        throw new IOException("Failed to create directory " + dir);
+      }
+      out =
+          new BufferedWriter(
+              new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+      out.write(XML_DECLARATION);
+      writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+    }
+
+    @Override
+    public void close() throws IOException, XMLStreamException {
+      try {
+        writer.writeEndDocument();
+        writer.close();
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  private enum Mode {
+    DOM,
+    STREAM,
+    SAXON,
+    COPY
+  }
+
   private void setActiveProjectProperty(final String propertyName, final String propertyValue) {
     final Project activeProject = getProject();
     if (activeProject != null) {
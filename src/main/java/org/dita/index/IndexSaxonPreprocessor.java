@@ -0,0 +1,243 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static javax.xml.XMLConstants.XML_NS_PREFIX;
+import static org.dita.dost.util.Constants.ATTRIBUTE_NAME_CLASS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import net.sf.saxon.s9api.Axis;
+import net.sf.saxon.s9api.DOMDestination;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.QName;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XdmNode;
+import net.sf.saxon.s9api.XdmNodeKind;
+import net.sf.saxon.s9api.XdmSequenceIterator;
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.index.configuration.IndexConfiguration;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Node;
+
+/**
+ * Saxon index preprocessor. Walks a Saxon tree, usually a TinyTree, and writes the result to a
+ * stream writer, usually one created by a Saxon serializer. Only index term elements are copied
+ * into DOM fragments.
+ */
+public final class IndexSaxonPreprocessor {
+
+  private final Processor processor;
+  private final String prefix;
+  private final String namespaceUrl;
+  private final boolean includeDraft;
+  private final IndexPreprocessor indexPreprocessor;
+  private XMLStreamWriter indexGroupsWriter;
+  private int excludedDraftDepth = 0;
+
+  /**
+   * Create new Saxon index preprocessor.
+   *
+   * @param processor Saxon processor used to copy index term elements
+   * @param prefix index prefix
+   * @param namespaceUrl index element namespace URI
+   * @param includeDraft include index terms in draft content
+   */
+  public IndexSaxonPreprocessor(
+      final Processor processor,
+      final String prefix,
+      final String namespaceUrl,
+      final boolean includeDraft) {
+    this.processor = processor;
+    this.prefix = prefix;
+    this.namespaceUrl = namespaceUrl;
+    this.includeDraft = includeDraft;
+    indexPreprocessor = new IndexPreprocessor(prefix, namespaceUrl, includeDraft);
+  }
+
+  public void setLogger(final DITAOTLogger logger) {
+    indexPreprocessor.setLogger(logger);
+  }
+
+  public void setStatistics(final IndexStatistics statistics) {
+    indexPreprocessor.setStatistics(statistics);
+  }
+
+  /**
+   * Set generator for index IDs of refIDs.
+   *
+   * @param indexIdGenerator index ID generator
+   */
+  void setIndexIdGenerator(final IndexIdGenerator indexIdGenerator) {
+    indexPreprocessor.setIndexIdGenerator(indexIdGenerator);
+  }
+
+  /**
+   * Set writer for index groups. Index groups are written to it instead of appending them to the
+   * root element of output.
+   *
+   * @param indexGroupsWriter index groups writer, {@code null} to append index groups to output
+   */
+  public void setIndexGroupsWriter(final XMLStreamWriter indexGroupsWriter) {
+    this.indexGroupsWriter = indexGroupsWriter;
+  }
+
+  /**
+   * Process index terms. Writes input document to output, replaces index terms with pre-processed
+   * index entries and appends index groups to the end of the root element, or writes them to the
+   * index groups writer if set.
+   *
+   * @param input input document node
+   * @param writer output writer
+   * @param configuration index configuration
+   * @param locale locale used to sort and group index entries
+   * @return read index terms and uncategorized index entries
+   */
+  IndexPreprocessResult process(
+      final XdmNode input,
+      final XMLStreamWriter writer,
+      final IndexConfiguration configuration,
+      final Locale locale)
+      throws XMLStreamException, SaxonApiException {
+    final Document document = IndexPreprocessor.newDocument();
+    final List<IndexEntry> indexes = new ArrayList<>();
+    Collection<IndexEntry> uncategorized = Collections.emptyList();
+    writer.writeStartDocument();
+    for (final XdmNode child : input.children()) {
+      if (child.getNodeKind() == XdmNodeKind.ELEMENT) {
+        processElement(child, Collections.emptyMap(), true, document, writer, indexes);
+        final IndexGroupProcessResult groups =
+            indexPreprocessor.groupIndexEntries(indexes, configuration, locale);
+        uncategorized = groups.uncategorizedEntries;
+        indexPreprocessor.writeIndexGroups(
+            groups.indexGroups, locale, indexGroupsWriter != null ? indexGroupsWriter : writer);
+        writer.writeEndElement();
+      } else {
+        processNode(child, Collections.emptyMap(), document, writer, indexes);
+      }
+    }
+    writer.writeEndDocument();
+    writer.flush();
+    return new IndexPreprocessResult(null, indexes, uncategorized);
+  }
+
+  private void processNode(
+      final XdmNode node,
+      final Map<String, String> parentNamespaces,
+      final Document document,
+      final XMLStreamWriter writer,
+      final List<IndexEntry> indexes)
+      throws XMLStreamException, SaxonApiException {
+    switch (node.getNodeKind()) {
+      case ELEMENT:
+        final String cls = node.attribute(ATTRIBUTE_NAME_CLASS);
+        if (IndexPreprocessor.isDitaIndexElement(cls) && excludedDraftDepth == 0) {
+          final DocumentFragment fragment = document.createDocumentFragment();
+          processor.writeXdmValue(node, new DOMDestination(fragment));
+          final Node element = fragment.getFirstChild();
+          for (final Node res :
+              indexPreprocessor.processIndexNode(element, document, indexes::add)) {
+            XMLStreamUtils.writeNode(res, writer);
+          }
+        } else {
+          processElement(node, parentNamespaces, false, document, writer, indexes);
+          writer.writeEndElement();
+        }
+        break;
+      case TEXT:
+        writer.writeCharacters(node.getStringValue());
+        break;
+      case COMMENT:
+        writer.writeComment(node.getStringValue());
+        break;
+      case PROCESSING_INSTRUCTION:
+        writer.writeProcessingInstruction(
+            node.getNodeName().getLocalName(), node.getStringValue());
+        break;
+      default:
+        break;
+    }
+  }
+
+  /** Write element start, attributes and children. Element end is left for the caller. */
+  private void processElement(
+      final XdmNode node,
+      final Map<String, String> parentNamespaces,
+      final boolean root,
+      final Document document,
+      final XMLStreamWriter writer,
+      final List<IndexEntry> indexes)
+      throws XMLStreamException, SaxonApiException {
+    final QName name = node.getNodeName();
+    writer.writeStartElement(name.getPrefix(), name.getLocalName(), name.getNamespace());
+    final Map<String, String> namespaces = getNamespaces(node);
+    for (final Map.Entry<String, String> namespace : namespaces.entrySet()) {
+      if (!namespace.getValue().equals(parentNamespaces.get(namespace.getKey()))) {
+        if (namespace.getKey().isEmpty()) {
+          writer.writeDefaultNamespace(namespace.getValue());
+        } else {
+          writer.writeNamespace(namespace.getKey(), namespace.getValue());
+        }
+      }
+    }
+    if (parentNamespaces.containsKey("") && !namespaces.containsKey("")) {
+      writer.writeDefaultNamespace("");
+    }
+    if (root) {
+      writer.writeNamespace(prefix, namespaceUrl);
+    }
+    for (final XdmSequenceIterator<XdmNode> attrs = node.axisIterator(Axis.ATTRIBUTE);
+        attrs.hasNext(); ) {
+      final XdmNode attr = attrs.next();
+      final QName attrName = attr.getNodeName();
+      if (attrName.getNamespace().isEmpty()) {
+        writer.writeAttribute(attrName.getLocalName(), attr.getStringValue());
+      } else {
+        writer.writeAttribute(
+            attrName.getPrefix(),
+            attrName.getNamespace(),
+            attrName.getLocalName(),
+            attr.getStringValue());
+      }
+    }
+
+    final boolean draft =
+        !includeDraft && IndexPreprocessor.isDraftElement(node.attribute(ATTRIBUTE_NAME_CLASS));
+    if (draft) {
+      excludedDraftDepth++;
+    }
+    for (final XdmNode child : node.children()) {
+      processNode(child, namespaces, document, writer, indexes);
+    }
+    if (draft) {
+      excludedDraftDepth--;
+    }
+  }
+
+  private static Map<String, String> getNamespaces(final XdmNode node) {
+    final Map<String, String> res = new HashMap<>();
+    for (final XdmSequenceIterator<XdmNode> nss = node.axisIterator(Axis.NAMESPACE);
+        nss.hasNext(); ) {
+      final XdmNode ns = nss.next();
+      final String nsPrefix = ns.getNodeName() != null ? ns.getNodeName().getLocalName() : "";
+      if (!nsPrefix.equals(XML_NS_PREFIX)) {
+        res.put(nsPrefix, ns.getStringValue());
+      }
+    }
+    return res;
+  }
+}
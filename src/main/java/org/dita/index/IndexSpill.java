@@ -0,0 +1,634 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Top-level index entries that are spilled to disk when there are too many of them to keep in
+ * memory. Entries are merged in an {@link IndexTrie} until the entry threshold is reached, then the
+ * merged entries are sorted by collation key and written to a run file. When index groups are
+ * written, runs are merged with a k-way merge, entries with the same value are merged in document
+ * order and the merged entries are partitioned into a file per index group.
+ *
+ * <p>Only a summary of each distinct top-level entry is kept in memory: value, sort string of the
+ * first entry and range and page flags. Summaries are grouped and sorted instead of the entries, so
+ * the output is the same as when all entries are kept in memory. Markup contents are stored as
+ * nodes read by {@link XMLStreamUtils#readElement}.
+ *
+ * <p>Index values and refIDs of added entries are stored in a symbol table of the current run that
+ * is dropped when the run is written, and entries read from run and group files get a symbol table
+ * of their own. Memory use grows with the number of distinct top-level entries, not with the
+ * number of refIDs.
+ *
+ * <pre>
+ * run     int entry count, (bytes collation key, entry)*
+ * group   (int rank, entry)*
+ * entry   string value, string formatted value, string sort string, byte flags, int ref ID count,
+ *         string ref ID*, int content count or -1, node*, int child count, entry*, int see count,
+ *         entry*, int see also count, entry*
+ * node    byte node type, element: string namespace, string name, int attribute count,
+ *         (string namespace, string name, string value)*, int child count, node*;
+ *         processing instruction: string target, string data; other: string value
+ * string  int UTF-8 length or -1 for null, bytes
+ * bytes   int length, bytes
+ * </pre>
+ */
+final class IndexSpill implements Closeable {
+
+  private static final int FLAG_START_RANGE = 1;
+  private static final int FLAG_END_RANGE = 1 << 1;
+  private static final int FLAG_NO_PAGE = 1 << 2;
+  private static final int FLAG_SINGLE_PAGE = 1 << 3;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final File parentDir;
+  private final int threshold;
+  private final IndexCollator collator;
+  /** Index values of summaries. */
+  private final SymbolTable summarySymbols = new SymbolTable();
+  /** Summaries of top-level entries by value in order of first occurrence. */
+  private final Map<String, IndexEntry> summaries = new LinkedHashMap<>();
+  /** Document used to create markup contents of read entries. */
+  private final Document document = IndexPreprocessor.newDocument();
+
+  private final List<Path> runs = new ArrayList<>();
+  private final List<Path> files = new ArrayList<>();
+  private final List<Closeable> streams = new ArrayList<>();
+  /** Spill directory, {@code null} until the first run is written. */
+  private Path dir;
+  /** Entries added since the last run was written. */
+  private IndexTrie current = new IndexTrie();
+  /** Index values and refIDs of entries added since the last run was written. */
+  private SymbolTable symbols = new SymbolTable();
+
+  private int currentCount;
+  private long count;
+
+  /**
+   * Create new index entry spill.
+   *
+   * @param parentDir directory to create the spill directory in, {@code null} for the default
+   *     temporary directory
+   * @param threshold number of entries kept in memory before they are written to a run
+   * @param locale locale used to sort index entries
+   */
+  IndexSpill(final File parentDir, final int threshold, final Locale locale) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("Threshold must be a positive number: " + threshold);
+    }
+    this.parentDir = parentDir;
+    this.threshold = threshold;
+    this.collator = new IndexCollator(locale);
+  }
+
+  /**
+   * Add top-level index entry. Entries are written to a new run when the threshold is reached.
+   *
+   * @param entry index entry, may be modified
+   * @throws UncheckedIOException if writing a run fails
+   */
+  void add(final IndexEntry entry) {
+    final IndexEntry summary = summaries.get(entry.getValue());
+    if (summary == null) {
+      final IndexEntry newSummary =
+          new IndexEntryImpl(
+              summarySymbols,
+              entry.getValue(),
+              entry.getSortString(),
+              entry.getFormattedString(),
+              null);
+      newSummary.setStartRange(entry.isStartingRange());
+      newSummary.setEndsRange(entry.isEndingRange());
+      newSummary.setSuppressesThePageNumber(entry.isSuppressesThePageNumber());
+      newSummary.setRestoresPageNumber(entry.isRestoresPageNumber());
+      summaries.put(newSummary.getValue(), newSummary);
+    } else {
+      IndexTrie.mergeFlags(summary, entry);
+    }
+    current.insert(entry);
+    count++;
+    if (++currentCount >= threshold) {
+      try {
+        spill();
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Get symbol table to store index values and refIDs of added entries in. The table is replaced
+   * when a run is written.
+   *
+   * @return symbol table of the current run
+   */
+  SymbolTable getSymbols() {
+    return symbols;
+  }
+
+  /** @return number of added index entries */
+  long size() {
+    return count;
+  }
+
+  /** @return number of runs written */
+  int getRuns() {
+    return runs.size();
+  }
+
+  /**
+   * Get summaries of top-level entries. Summaries have the value, sort string and flags of the
+   * merged entry, but no refIDs or child entries.
+   *
+   * @return summaries in order of first occurrence
+   */
+  Collection<IndexEntry> getEntries() {
+    return Collections.unmodifiableCollection(summaries.values());
+  }
+
+  /** Sort entries added since the last run by collation key and write them to a new run. */
+  private void spill() throws IOException {
+    final Collection<IndexEntry> roots = current.getRoots().values();
+    final Record[] records = new Record[roots.size()];
+    int i = 0;
+    for (final IndexEntry entry : roots) {
+      records[i++] = new Record(getCollationKey(entry.getValue()), entry);
+    }
+    Arrays.sort(records, (r1, r2) -> compare(r1.key, r1.entry, r2.key, r2.entry));
+    final Path run = createFile("run");
+    runs.add(run);
+    try (DataOutputStream out = newOutput(run)) {
+      out.writeInt(records.length);
+      for (final Record record : records) {
+        out.writeInt(record.key.length);
+        out.write(record.key);
+        writeEntry(out, record.entry);
+      }
+    }
+    current = new IndexTrie();
+    symbols = new SymbolTable();
+    currentCount = 0;
+  }
+
+  /** Collation key of the sort string or value of the first top-level entry with a value. */
+  private byte[] getCollationKey(final String value) {
+    final IndexEntry summary = summaries.get(value);
+    final String sortString = summary.getSortString();
+    return collator.getCollationKeyBytes(sortString != null ? sortString : value);
+  }
+
+  private static int compare(
+      final byte[] key1, final IndexEntry entry1, final byte[] key2, final IndexEntry entry2) {
+    final int res = Arrays.compareUnsigned(key1, key2);
+    return res != 0 ? res : entry1.getValue().compareTo(entry2.getValue());
+  }
+
+  /**
+   * Merge added entries into index groups. If no run has been written, entries are returned from
+   * memory. Otherwise the remaining entries are written to a run and all runs are merged into group
+   * files. Entries are read from a group file when it is iterated; entries whose collation keys are
+   * equal may be stored out of order and are buffered until their turn.
+   *
+   * <p>No entries can be added after merging.
+   *
+   * @param groups summaries of top-level entries by index group, in output order
+   * @return merged entries by index group, in the order of the summaries
+   */
+  List<Iterable<IndexEntry>> merge(final List<? extends Collection<IndexEntry>> groups)
+      throws IOException {
+    final List<Iterable<IndexEntry>> res = new ArrayList<>(groups.size());
+    if (runs.isEmpty()) {
+      final Map<String, IndexEntry> roots = current.getRoots();
+      for (final Collection<IndexEntry> group : groups) {
+        final List<IndexEntry> entries = new ArrayList<>(group.size());
+        for (final IndexEntry summary : group) {
+          entries.add(roots.get(summary.getValue()));
+        }
+        res.add(entries);
+      }
+      return res;
+    }
+    if (currentCount > 0) {
+      spill();
+    }
+    current = null;
+
+    final Map<String, Integer> ranks = new HashMap<>();
+    final int[] starts = new int[groups.size() + 1];
+    int rank = 0;
+    for (int i = 0; i < groups.size(); i++) {
+      starts[i] = rank;
+      for (final IndexEntry summary : groups.get(i)) {
+        ranks.put(summary.getValue(), rank++);
+      }
+    }
+    starts[groups.size()] = rank;
+    final int[] groupOf = new int[rank];
+    for (int i = 0; i < groups.size(); i++) {
+      Arrays.fill(groupOf, starts[i], starts[i + 1], i);
+    }
+
+    final Path[] groupFiles = new Path[groups.size()];
+    final DataOutputStream[] outs = new DataOutputStream[groups.size()];
+    final PriorityQueue<Run> queue =
+        new PriorityQueue<>(
+            (r1, r2) -> {
+              final int res1 = compare(r1.key, r1.entry, r2.key, r2.entry);
+              return res1 != 0 ? res1 : Integer.compare(r1.index, r2.index);
+            });
+    final List<Run> open = new ArrayList<>(runs.size());
+    try {
+      for (int i = 0; i < runs.size(); i++) {
+        final Run run = new Run(runs.get(i), i);
+        open.add(run);
+        if (run.next()) {
+          queue.add(run);
+        }
+      }
+      while (!queue.isEmpty()) {
+        final Run first = queue.poll();
+        final IndexEntry entry = first.entry;
+        final byte[] key = first.key;
+        if (first.next()) {
+          queue.add(first);
+        }
+        while (!queue.isEmpty() && compare(key, entry, queue.peek().key, queue.peek().entry) == 0) {
+          final Run run = queue.poll();
+          IndexTrie.merge(entry, run.entry, false);
+          if (run.next()) {
+            queue.add(run);
+          }
+        }
+        final Integer entryRank = ranks.get(entry.getValue());
+        if (entryRank == null) {
+          continue;
+        }
+        final int group = groupOf[entryRank];
+        if (outs[group] == null) {
+          groupFiles[group] = createFile("group");
+          outs[group] = newOutput(groupFiles[group]);
+        }
+        outs[group].writeInt(entryRank);
+        writeEntry(outs[group], entry);
+      }
+    } finally {
+      for (final Run run : open) {
+        run.in.close();
+      }
+      for (final DataOutputStream out : outs) {
+        if (out != null) {
+          out.close();
+        }
+      }
+    }
+    for (final Path run : runs) {
+      Files.deleteIfExists(run);
+    }
+    for (int i = 0; i < groups.size(); i++) {
+      res.add(
+          groupFiles[i] != null
+              ? new GroupEntries(groupFiles[i], starts[i], starts[i + 1])
+              : Collections.emptyList());
+    }
+    return res;
+  }
+
+  /** Close open group files and delete the spill directory. */
+  @Override
+  public void close() throws IOException {
+    for (final Closeable stream : streams) {
+      stream.close();
+    }
+    streams.clear();
+    for (final Path file : files) {
+      Files.deleteIfExists(file);
+    }
+    files.clear();
+    if (dir != null) {
+      Files.deleteIfExists(dir);
+      dir = null;
+    }
+  }
+
+  private Path createFile(final String prefix) throws IOException {
+    if (dir == null) {
+      dir =
+          parentDir != null
+              ? Files.createTempDirectory(parentDir.toPath(), "index-spill")
+              : Files.createTempDirectory("index-spill");
+    }
+    final Path file = dir.resolve(prefix + files.size() + ".bin");
+    files.add(file);
+    return file;
+  }
+
+  private static DataOutputStream newOutput(final Path file) throws IOException {
+    return new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+  }
+
+  private static DataInputStream newInput(final Path file) throws IOException {
+    return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+  }
+
+  private static void writeEntry(final DataOutputStream out, final IndexEntry entry)
+      throws IOException {
+    writeString(out, entry.getValue());
+    writeString(out, entry.getFormattedString());
+    writeString(out, entry.getSortString());
+    out.writeByte(
+        (entry.isStartingRange() ? FLAG_START_RANGE : 0)
+            | (entry.isEndingRange() ? FLAG_END_RANGE : 0)
+            | (entry.isSuppressesThePageNumber() ? FLAG_NO_PAGE : 0)
+            | (entry.isRestoresPageNumber() ? FLAG_SINGLE_PAGE : 0));
+    out.writeInt(entry.getRefIDs().size());
+    for (final String refID : entry.getRefIDs()) {
+      writeString(out, refID);
+    }
+    final List<Node> contents = entry.getContents();
+    if (contents == null) {
+      out.writeInt(-1);
+    } else {
+      out.writeInt(contents.size());
+      for (final Node node : contents) {
+        writeNode(out, node);
+      }
+    }
+    writeEntries(out, entry.children());
+    writeEntries(out, entry.seeChildren());
+    writeEntries(out, entry.seeAlsoChildren());
+  }
+
+  private static void writeEntries(final DataOutputStream out, final List<IndexEntry> entries)
+      throws IOException {
+    out.writeInt(entries.size());
+    for (final IndexEntry entry : entries) {
+      writeEntry(out, entry);
+    }
+  }
+
+  private static void writeNode(final DataOutputStream out, final Node node) throws IOException {
+    out.writeByte(node.getNodeType());
+    switch (node.getNodeType()) {
+      case Node.ELEMENT_NODE:
+        writeString(out, node.getNamespaceURI());
+        writeString(out, node.getNodeName());
+        final NamedNodeMap attributes = node.getAttributes();
+        out.writeInt(attributes.getLength());
+        for (int i = 0; i < attributes.getLength(); i++) {
+          final Attr attribute = (Attr) attributes.item(i);
+          writeString(out, attribute.getNamespaceURI());
+          writeString(out, attribute.getName());
+          writeString(out, attribute.getValue());
+        }
+        int childCount = 0;
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+          childCount++;
+        }
+        out.writeInt(childCount);
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+          writeNode(out, child);
+        }
+        break;
+      case Node.PROCESSING_INSTRUCTION_NODE:
+        writeString(out, node.getNodeName());
+        writeString(out, node.getNodeValue());
+        break;
+      case Node.ENTITY_REFERENCE_NODE:
+        writeString(out, node.getNodeName());
+        break;
+      default:
+        writeString(out, node.getNodeValue());
+        break;
+    }
+  }
+
+  private static void writeString(final DataOutputStream out, final String value)
+      throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+    } else {
+      final byte[] bytes = value.getBytes(UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Read entry and its child entries.
+   *
+   * @param in input stream
+   * @param symbols symbol table to store index values and refIDs in, a new table for top-level
+   *     entries so that it is dropped with the entry
+   * @return read entry
+   */
+  private IndexEntry readEntry(final DataInputStream in, final SymbolTable symbols)
+      throws IOException {
+    final String value = readString(in);
+    final String formattedString = readString(in);
+    final String sortString = readString(in);
+    final int flags = in.readByte();
+    final String[] refIDs = new String[in.readInt()];
+    for (int i = 0; i < refIDs.length; i++) {
+      refIDs[i] = readString(in);
+    }
+    final int contentCount = in.readInt();
+    List<Node> contents = null;
+    if (contentCount != -1) {
+      contents = new ArrayList<>(contentCount);
+      for (int i = 0; i < contentCount; i++) {
+        contents.add(readNode(in));
+      }
+    }
+    final IndexEntry entry =
+        new IndexEntryImpl(symbols, value, sortString, formattedString, contents);
+    entry.setStartRange((flags & FLAG_START_RANGE) != 0);
+    entry.setEndsRange((flags & FLAG_END_RANGE) != 0);
+    entry.setSuppressesThePageNumber((flags & FLAG_NO_PAGE) != 0);
+    entry.setRestoresPageNumber((flags & FLAG_SINGLE_PAGE) != 0);
+    for (final String refID : refIDs) {
+      entry.addRefID(refID);
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      entry.addChild(readEntry(in, symbols));
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      entry.addSeeChild(readEntry(in, symbols));
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      entry.addSeeAlsoChild(readEntry(in, symbols));
+    }
+    return entry;
+  }
+
+  private Node readNode(final DataInputStream in) throws IOException {
+    final int type = in.readByte();
+    switch (type) {
+      case Node.ELEMENT_NODE:
+        final Element element = document.createElementNS(readString(in), readString(in));
+        for (int i = in.readInt(); i > 0; i--) {
+          element.setAttributeNS(readString(in), readString(in), readString(in));
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+          element.appendChild(readNode(in));
+        }
+        return element;
+      case Node.TEXT_NODE:
+        return document.createTextNode(readString(in));
+      case Node.CDATA_SECTION_NODE:
+        return document.createCDATASection(readString(in));
+      case Node.COMMENT_NODE:
+        return document.createComment(readString(in));
+      case Node.PROCESSING_INSTRUCTION_NODE:
+        return document.createProcessingInstruction(readString(in), readString(in));
+      case Node.ENTITY_REFERENCE_NODE:
+        return document.createEntityReference(readString(in));
+      default:
+        throw new IOException("Unsupported node type " + type);
+    }
+  }
+
+  private static String readString(final DataInputStream in) throws IOException {
+    final int length = in.readInt();
+    if (length == -1) {
+      return null;
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  /** Top-level entry with its collation key. */
+  private static final class Record {
+    private final byte[] key;
+    private final IndexEntry entry;
+
+    Record(final byte[] key, final IndexEntry entry) {
+      this.key = key;
+      this.entry = entry;
+    }
+  }
+
+  /** Run file positioned at an entry. */
+  private final class Run {
+    private final DataInputStream in;
+    private final int index;
+    private int remaining;
+    private byte[] key;
+    private IndexEntry entry;
+
+    Run(final Path file, final int index) throws IOException {
+      this.in = newInput(file);
+      this.index = index;
+      this.remaining = in.readInt();
+    }
+
+    /** @return {@code true} if the next entry was read, {@code false} at the end of the run */
+    boolean next() throws IOException {
+      if (remaining == 0) {
+        return false;
+      }
+      remaining--;
+      key = new byte[in.readInt()];
+      in.readFully(key);
+      entry = readEntry(in, new SymbolTable());
+      return true;
+    }
+  }
+
+  /** Entries of an index group file in rank order. */
+  private final class GroupEntries implements Iterable<IndexEntry> {
+    private final Path file;
+    private final int start;
+    private final int end;
+
+    GroupEntries(final Path file, final int start, final int end) {
+      this.file = file;
+      this.start = start;
+      this.end = end;
+    }
+
+    /** @throws UncheckedIOException if reading the group file fails */
+    @Override
+    public Iterator<IndexEntry> iterator() {
+      final DataInputStream in;
+      try {
+        in = newInput(file);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      streams.add(in);
+      return new Iterator<IndexEntry>() {
+        /** Entries read before their turn by rank. */
+        private final Map<Integer, IndexEntry> pending = new HashMap<>();
+
+        private int next = start;
+
+        @Override
+        public boolean hasNext() {
+          return next < end;
+        }
+
+        @Override
+        public IndexEntry next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          try {
+            IndexEntry entry = pending.remove(next);
+            while (entry == null) {
+              final int rank = in.readInt();
+              final IndexEntry read = readEntry(in, new SymbolTable());
+              if (rank == next) {
+                entry = read;
+              } else {
+                pending.put(rank, read);
+              }
+            }
+            if (++next == end) {
+              in.close();
+            }
+            return entry;
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      };
+    }
+  }
+}
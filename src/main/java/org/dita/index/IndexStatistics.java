@@ -0,0 +1,245 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Timings and counters of index processing. Phase times are exclusive: when a phase is started
+ * while another one is running, the running phase is paused until the nested phase stops.
+ * Statistics are not thread-safe, each job records its own and they are merged afterwards.
+ */
+public final class IndexStatistics {
+
+  /** Processing phase. */
+  public enum Phase {
+    /** Parsing input into a tree. */
+    PARSE,
+    /**
+     * Reading index terms. In stream, saxon and copy modes this includes reading input and writing
+     * output.
+     */
+    EXTRACT,
+    /** Putting index entries into index groups and creating index group output. */
+    GROUP,
+    /** Sorting index entries. */
+    SORT,
+    /** Writing output. */
+    SERIALIZE;
+
+    /** @return lower case phase name */
+    public String getName() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+
+  private final long[] times = new long[Phase.values().length];
+  private final long[] allocations = new long[Phase.values().length];
+  private final Deque<Phase> stack = new ArrayDeque<>();
+  private long mark;
+  private long allocationMark;
+  private long entries;
+  private long groups;
+  private long comparisons;
+  private int depth;
+  private int jobs = 1;
+
+  private static com.sun.management.ThreadMXBean getThreadMXBean() {
+    try {
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+        final com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+          return bean;
+        }
+      }
+    } catch (final LinkageError e) {
+      // management API is not available
+    }
+    return null;
+  }
+
+  /**
+   * Start phase. Running phase, if any, is paused.
+   *
+   * @param phase phase to start
+   */
+  public void start(final Phase phase) {
+    final long now = System.nanoTime();
+    final long allocated = allocatedBytes();
+    if (!stack.isEmpty()) {
+      accumulate(stack.peek(), now, allocated);
+    }
+    stack.push(phase);
+    mark = now;
+    allocationMark = allocated;
+  }
+
+  /**
+   * Stop phase. Paused phase, if any, is resumed.
+   *
+   * @param phase phase to stop, must be the last started phase
+   */
+  public void stop(final Phase phase) {
+    if (stack.peek() != phase) {
+      throw new IllegalStateException("Phase " + phase.getName() + " is not running");
+    }
+    final long now = System.nanoTime();
+    final long allocated = allocatedBytes();
+    accumulate(stack.pop(), now, allocated);
+    mark = now;
+    allocationMark = allocated;
+  }
+
+  private void accumulate(final Phase phase, final long now, final long allocated) {
+    times[phase.ordinal()] += now - mark;
+    if (allocated != -1) {
+      allocations[phase.ordinal()] += allocated - allocationMark;
+    }
+  }
+
+  private static long allocatedBytes() {
+    return THREAD_MX_BEAN != null ? THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() : -1;
+  }
+
+  /** @param count number of index entries read */
+  void addEntries(final long count) {
+    entries += count;
+  }
+
+  /** @param count number of index groups written */
+  void addGroups(final long count) {
+    groups += count;
+  }
+
+  /** @param count number of collator comparisons */
+  void addComparisons(final long count) {
+    comparisons += count;
+  }
+
+  /** @param depth index entry nesting depth, top level entries are at depth 1 */
+  void updateDepth(final int depth) {
+    if (depth > this.depth) {
+      this.depth = depth;
+    }
+  }
+
+  /**
+   * Add statistics of another job to this one.
+   *
+   * @param other statistics to add
+   */
+  public void merge(final IndexStatistics other) {
+    for (int i = 0; i < times.length; i++) {
+      times[i] += other.times[i];
+      allocations[i] += other.allocations[i];
+    }
+    entries += other.entries;
+    groups += other.groups;
+    comparisons += other.comparisons;
+    updateDepth(other.depth);
+    jobs += other.jobs;
+  }
+
+  /**
+   * @param phase phase
+   * @return wall time spent in phase in milliseconds
+   */
+  public long getTime(final Phase phase) {
+    return times[phase.ordinal()] / 1_000_000;
+  }
+
+  /**
+   * @param phase phase
+   * @return bytes allocated in phase, or -1 if allocation is not measured by the JVM
+   */
+  public long getAllocatedBytes(final Phase phase) {
+    return THREAD_MX_BEAN != null ? allocations[phase.ordinal()] : -1;
+  }
+
+  /** @return number of index entries read */
+  public long getEntries() {
+    return entries;
+  }
+
+  /** @return number of index groups written */
+  public long getGroups() {
+    return groups;
+  }
+
+  /** @return number of collator comparisons */
+  public long getComparisons() {
+    return comparisons;
+  }
+
+  /** @return maximum index entry nesting depth */
+  public int getDepth() {
+    return depth;
+  }
+
+  /** @return number of jobs included in statistics */
+  public int getJobs() {
+    return jobs;
+  }
+
+  /**
+   * Get statistics as flat map. Phase values are named {@code <phase>.time} in milliseconds and
+   * {@code <phase>.allocated} in bytes.
+   *
+   * @return statistics by name in stable order
+   */
+  public Map<String, Long> toMap() {
+    final Map<String, Long> res = new LinkedHashMap<>();
+    for (final Phase phase : Phase.values()) {
+      res.put(phase.getName() + ".time", getTime(phase));
+      res.put(phase.getName() + ".allocated", getAllocatedBytes(phase));
+    }
+    res.put("entries", entries);
+    res.put("groups", groups);
+    res.put("comparisons", comparisons);
+    res.put("depth", (long) depth);
+    res.put("jobs", (long) jobs);
+    return res;
+  }
+
+  /** @return statistics as a JSON object */
+  public String toJson() {
+    final StringBuilder buf = new StringBuilder("{\n  \"phases\": {");
+    for (final Phase phase : Phase.values()) {
+      buf.append(phase.ordinal() == 0 ? "\n" : ",\n")
+          .append("    \"")
+          .append(phase.getName())
+          .append("\": {\"time\": ")
+          .append(getTime(phase))
+          .append(", \"allocated\": ")
+          .append(getAllocatedBytes(phase))
+          .append('}');
+    }
+    buf.append("\n  },\n")
+        .append("  \"entries\": ")
+        .append(entries)
+        .append(",\n  \"groups\": ")
+        .append(groups)
+        .append(",\n  \"comparisons\": ")
+        .append(comparisons)
+        .append(",\n  \"depth\": ")
+        .append(depth)
+        .append(",\n  \"jobs\": ")
+        .append(jobs)
+        .append("\n}\n");
+    return buf.toString();
+  }
+}
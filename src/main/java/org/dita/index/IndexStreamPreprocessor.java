@@ -0,0 +1,206 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static javax.xml.XMLConstants.NULL_NS_URI;
+import static org.dita.dost.util.Constants.ATTRIBUTE_NAME_CLASS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.index.configuration.IndexConfiguration;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Streaming index preprocessor. Events outside index term elements are copied from input to output
+ * as is, only index term elements are read into DOM fragments. Index groups are written before the
+ * end of the root element.
+ */
+public final class IndexStreamPreprocessor {
+
+  private final String prefix;
+  private final String namespaceUrl;
+  private final boolean includeDraft;
+  private final IndexPreprocessor indexPreprocessor;
+  private XMLStreamWriter indexGroupsWriter;
+  private int spillThreshold;
+  private File spillDir;
+
+  /**
+   * Create new streaming index preprocessor.
+   *
+   * @param prefix index prefix
+   * @param namespaceUrl index element namespace URI
+   * @param includeDraft include index terms in draft content
+   */
+  public IndexStreamPreprocessor(
+      final String prefix, final String namespaceUrl, final boolean includeDraft) {
+    this.prefix = prefix;
+    this.namespaceUrl = namespaceUrl;
+    this.includeDraft = includeDraft;
+    indexPreprocessor = new IndexPreprocessor(prefix, namespaceUrl, includeDraft);
+  }
+
+  public void setLogger(final DITAOTLogger logger) {
+    indexPreprocessor.setLogger(logger);
+  }
+
+  public void setStatistics(final IndexStatistics statistics) {
+    indexPreprocessor.setStatistics(statistics);
+  }
+
+  /**
+   * Set generator for index IDs of refIDs.
+   *
+   * @param indexIdGenerator index ID generator
+   */
+  void setIndexIdGenerator(final IndexIdGenerator indexIdGenerator) {
+    indexPreprocessor.setIndexIdGenerator(indexIdGenerator);
+  }
+
+  /**
+   * Set writer for index groups. Index groups are written to it instead of appending them to the
+   * root element of output.
+   *
+   * @param indexGroupsWriter index groups writer, {@code null} to append index groups to output
+   */
+  public void setIndexGroupsWriter(final XMLStreamWriter indexGroupsWriter) {
+    this.indexGroupsWriter = indexGroupsWriter;
+  }
+
+  /**
+   * Set number of index entries kept in memory before they are spilled to disk. Spilled entries
+   * are merged from disk when index groups are written, the output is the same as without
+   * spilling. Only summaries of distinct top-level index entries are kept in memory.
+   *
+   * @param spillThreshold number of index entries, {@code 0} to keep all index entries in memory
+   */
+  public void setSpillThreshold(final int spillThreshold) {
+    this.spillThreshold = spillThreshold;
+  }
+
+  /**
+   * Set directory to create spill files in.
+   *
+   * @param spillDir spill directory, {@code null} for the default temporary directory
+   */
+  public void setSpillDir(final File spillDir) {
+    this.spillDir = spillDir;
+  }
+
+  /**
+   * Process index terms. Copies input events to output, replaces index terms with pre-processed
+   * index entries and appends index groups to the end of the root element, or writes them to the
+   * index groups writer if set.
+   *
+   * @param reader input reader
+   * @param writer output writer, start document event is not written
+   * @param configuration index configuration
+   * @param locale locale used to sort and group index entries
+   * @return read index terms and uncategorized index entries, index terms are not returned if they
+   *     are spilled
+   */
+  IndexPreprocessResult process(
+      final XMLStreamReader reader,
+      final XMLStreamWriter writer,
+      final IndexConfiguration configuration,
+      final Locale locale)
+      throws IOException, XMLStreamException {
+    try (IndexSpill spill =
+        spillThreshold > 0
+            ? indexPreprocessor.createSpill(spillDir, spillThreshold, locale)
+            : null) {
+      return process(reader, writer, configuration, locale, spill);
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private IndexPreprocessResult process(
+      final XMLStreamReader reader,
+      final XMLStreamWriter writer,
+      final IndexConfiguration configuration,
+      final Locale locale,
+      final IndexSpill spill)
+      throws IOException, XMLStreamException {
+    final Document document = IndexPreprocessor.newDocument();
+    final List<IndexEntry> indexes = new ArrayList<>();
+    final IndexEntryFoundListener listener = spill != null ? spill::add : indexes::add;
+    Collection<IndexEntry> uncategorized = Collections.emptyList();
+    int depth = 0;
+    int excludedDraftDepth = -1;
+    while (reader.hasNext()) {
+      final int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          final String cls = reader.getAttributeValue(NULL_NS_URI, ATTRIBUTE_NAME_CLASS);
+          if (depth > 0
+              && excludedDraftDepth == -1
+              && IndexPreprocessor.isDitaIndexElement(cls)) {
+            final Element element = XMLStreamUtils.readElement(reader, document);
+            for (final Node node :
+                indexPreprocessor.processIndexNode(element, document, listener)) {
+              XMLStreamUtils.writeNode(node, writer);
+            }
+            break;
+          }
+          depth++;
+          XMLStreamUtils.copyEvent(reader, writer);
+          if (depth == 1
+              && !namespaceUrl.equals(reader.getNamespaceContext().getNamespaceURI(prefix))) {
+            writer.writeNamespace(prefix, namespaceUrl);
+          }
+          if (!includeDraft
+              && excludedDraftDepth == -1
+              && IndexPreprocessor.isDraftElement(cls)) {
+            excludedDraftDepth = depth;
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (depth == excludedDraftDepth) {
+            excludedDraftDepth = -1;
+          }
+          if (depth == 1) {
+            final XMLStreamWriter groupsWriter =
+                indexGroupsWriter != null ? indexGroupsWriter : writer;
+            if (spill != null) {
+              uncategorized =
+                  indexPreprocessor.writeIndexGroups(spill, configuration, locale, groupsWriter);
+            } else {
+              final IndexGroupProcessResult groups =
+                  indexPreprocessor.groupIndexEntries(indexes, configuration, locale);
+              uncategorized = groups.uncategorizedEntries;
+              indexPreprocessor.writeIndexGroups(groups.indexGroups, locale, groupsWriter);
+            }
+          }
+          depth--;
+          XMLStreamUtils.copyEvent(reader, writer);
+          break;
+        default:
+          XMLStreamUtils.copyEvent(reader, writer);
+          break;
+      }
+    }
+    writer.writeEndDocument();
+    writer.flush();
+    return new IndexPreprocessResult(null, indexes, uncategorized);
+  }
+}
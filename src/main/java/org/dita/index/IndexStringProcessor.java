@@ -50,7 +50,21 @@ public class IndexStringProcessor {
    */
   public static List<IndexEntry> processIndexString(
       final String indexMarkerString, final List<Node> contents) {
-    final IndexEntry indexEntry = createIndexEntry(indexMarkerString, contents, null, false);
+    return processIndexString(indexMarkerString, contents, new SymbolTable());
+  }
+
+  /**
+   * Parse the index marker string and create IndexEntry object from one.
+   *
+   * @param indexMarkerString index marker string
+   * @param contents IndexPreprocessorTask instance
+   * @param symbols symbol table to store index value and refID in
+   * @return IndexEntry objects created from the index string
+   */
+  static List<IndexEntry> processIndexString(
+      final String indexMarkerString, final List<Node> contents, final SymbolTable symbols) {
+    final IndexEntry indexEntry =
+        createIndexEntry(symbols, indexMarkerString, contents, null, false);
     final String referenceIDBuf = indexEntry.getValue() + VALUE_SEPARATOR;
     indexEntry.addRefID(referenceIDBuf);
     return Collections.singletonList(indexEntry);
@@ -61,20 +75,20 @@ public class IndexStringProcessor {
    *
    * @param string string to normalize
    * @return normalized string
+   * @deprecated use {@link WhitespaceNormalizer#normalizeSpace(String)}
    */
+  @Deprecated
   public static String normalizeTextValue(final String string) {
-    if (null != string && string.length() > 0) {
-      return string.replaceAll("[\\s\\n]+", " ").trim();
-    }
-    return string;
+    return WhitespaceNormalizer.normalizeSpace(string);
   }
 
   private static IndexEntry createIndexEntry(
+      final SymbolTable symbols,
       final String value,
       final List<Node> contents,
       final String sortString,
       final boolean isParentNoPage) {
-    final IndexEntry indexEntry = new IndexEntryImpl(value, sortString, value, contents);
+    final IndexEntry indexEntry = new IndexEntryImpl(symbols, value, sortString, value, contents);
     indexEntry.setSuppressesThePageNumber(isParentNoPage);
     indexEntry.setRestoresPageNumber(false);
     indexEntry.setStartRange(false);
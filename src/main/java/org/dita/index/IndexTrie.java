@@ -0,0 +1,95 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index entries merged by term path. Each index entry is inserted once along its path of values,
+ * e.g. primary, secondary and tertiary term. An entry with the same value as an existing entry at
+ * the same path is merged into the existing entry, otherwise the entry is attached as is. Child
+ * entries of an index entry are the next level of the trie.
+ *
+ * <p>Each inserted entry is visited once, so merging is linear in the number of inserted entries.
+ */
+final class IndexTrie {
+
+  /** Top-level entries by value. */
+  private final Map<String, IndexEntry> roots = new HashMap<>();
+
+  /**
+   * Insert top-level index entry.
+   *
+   * @param entry index entry, may be modified if it is attached to the trie
+   */
+  void insert(final IndexEntry entry) {
+    final IndexEntry existingEntry = roots.putIfAbsent(entry.getValue(), entry);
+    if (existingEntry != null) {
+      merge(existingEntry, entry, false);
+    }
+  }
+
+  /**
+   * Get top-level entries.
+   *
+   * @return mutable map of top-level entries by value
+   */
+  Map<String, IndexEntry> getRoots() {
+    return roots;
+  }
+
+  /**
+   * Merge index entry into an existing entry with the same value. Child, see and see also entries
+   * are inserted into the existing entry, refIDs are added and range and page flags combined.
+   * Like in earlier versions, top-level entries keep the sort string of the first entry and lower
+   * levels use the last sort string.
+   *
+   * @param existingEntry entry in the trie
+   * @param entry entry to merge
+   * @param mergeSortString replace sort string of existing entry with the sort string of entry
+   */
+  static void merge(
+      final IndexEntry existingEntry, final IndexEntry entry, final boolean mergeSortString) {
+    for (final IndexEntry child : entry.children()) {
+      existingEntry.addChild(child);
+    }
+    for (final IndexEntry child : entry.seeChildren()) {
+      existingEntry.addSeeChild(child);
+    }
+    for (final IndexEntry child : entry.seeAlsoChildren()) {
+      existingEntry.addSeeAlsoChild(child);
+    }
+    for (final String refID : entry.getRefIDs()) {
+      existingEntry.addRefID(refID);
+    }
+    mergeFlags(existingEntry, entry);
+    if (mergeSortString && entry.getSortString() != null) {
+      existingEntry.setSortString(entry.getSortString());
+    }
+  }
+
+  /**
+   * Combine range and page flags of index entry into an existing entry with the same value.
+   *
+   * @param existingEntry entry in the trie
+   * @param entry entry to merge
+   */
+  static void mergeFlags(final IndexEntry existingEntry, final IndexEntry entry) {
+    if (entry.isRestoresPageNumber()) {
+      existingEntry.setRestoresPageNumber(true);
+    }
+    if (!entry.isSuppressesThePageNumber()) {
+      existingEntry.setSuppressesThePageNumber(false);
+    }
+    if (entry.isStartingRange()) {
+      existingEntry.setStartRange(true);
+    }
+  }
+}
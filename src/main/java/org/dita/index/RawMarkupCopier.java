@@ -0,0 +1,247 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Copies XML markup from input to output character by character without parsing it into events.
+ * Selected elements are replaced with pre-serialized content, a namespace declaration is added to
+ * the root element and additional content is written before the end of the root element.
+ *
+ * <p>Elements are identified by their position in document order, the same numbering that a
+ * parser produces when it counts start element events. Input must not have a document type
+ * declaration, because entity references could then expand to elements that are not visible in
+ * the markup.
+ */
+final class RawMarkupCopier {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final Reader in;
+  private final Writer out;
+  private final char[] buf = new char[BUFFER_SIZE];
+  private int pos;
+  private int limit;
+  /** Current markup construct, from {@code <} to {@code >}. */
+  private char[] markup = new char[256];
+  private int markupLength;
+
+  /**
+   * Create new copier.
+   *
+   * @param in input reader
+   * @param out output writer
+   */
+  RawMarkupCopier(final Reader in, final Writer out) {
+    this.in = in;
+    this.out = out;
+  }
+
+  /**
+   * Copy input to output.
+   *
+   * @param elements document order numbers of replaced elements, in ascending order, root element
+   *     is number 0
+   * @param replacements serialized replacement for each replaced element
+   * @param rootNamespaceDeclaration namespace declaration added to the root element start tag
+   * @param rootContent serialized content written before the root element end tag
+   */
+  void copy(
+      final int[] elements,
+      final String[] replacements,
+      final String rootNamespaceDeclaration,
+      final String rootContent)
+      throws IOException {
+    int element = 0;
+    int next = 0;
+    int depth = 0;
+    int skipDepth = -1;
+    while (copyText(skipDepth != -1)) {
+      readMarkup();
+      switch (markup[1]) {
+        case '/':
+          depth--;
+          if (skipDepth != -1) {
+            if (depth == skipDepth) {
+              skipDepth = -1;
+            }
+            break;
+          }
+          if (depth == 0) {
+            out.write(rootContent);
+          }
+          out.write(markup, 0, markupLength);
+          break;
+        case '?':
+        case '!':
+          if (skipDepth == -1) {
+            out.write(markup, 0, markupLength);
+          }
+          break;
+        default:
+          final boolean empty = markup[markupLength - 2] == '/';
+          final int current = element++;
+          if (skipDepth != -1) {
+            if (!empty) {
+              depth++;
+            }
+            break;
+          }
+          if (next < elements.length && elements[next] == current) {
+            out.write(replacements[next++]);
+            if (!empty) {
+              skipDepth = depth;
+              depth++;
+            }
+            break;
+          }
+          if (current == 0) {
+            writeRootStart(empty, rootNamespaceDeclaration, rootContent);
+          } else {
+            out.write(markup, 0, markupLength);
+          }
+          if (!empty) {
+            depth++;
+          }
+          break;
+      }
+    }
+    out.flush();
+  }
+
+  private void writeRootStart(
+      final boolean empty, final String rootNamespaceDeclaration, final String rootContent)
+      throws IOException {
+    out.write(markup, 0, markupLength - (empty ? 2 : 1));
+    out.write(rootNamespaceDeclaration);
+    out.write('>');
+    if (empty) {
+      out.write(rootContent);
+      int nameEnd = 1;
+      while (nameEnd < markupLength && !isNameEnd(markup[nameEnd])) {
+        nameEnd++;
+      }
+      out.write("</");
+      out.write(markup, 1, nameEnd - 1);
+      out.write('>');
+    }
+  }
+
+  private static boolean isNameEnd(final char c) {
+    return c == '/' || c == '>' || c == ' ' || c == '\t' || c == '\n' || c == '\r';
+  }
+
+  /**
+   * Copy or skip character data up to the next markup construct.
+   *
+   * @param skip skip character data instead of copying it
+   * @return {@code true} if input is positioned at {@code <}, {@code false} at end of input
+   */
+  private boolean copyText(final boolean skip) throws IOException {
+    while (true) {
+      if (pos == limit && !fill()) {
+        return false;
+      }
+      final int start = pos;
+      while (pos < limit && buf[pos] != '<') {
+        pos++;
+      }
+      if (!skip && pos > start) {
+        out.write(buf, start, pos - start);
+      }
+      if (pos < limit) {
+        return true;
+      }
+    }
+  }
+
+  /** Read markup construct that starts at current input position into markup buffer. */
+  private void readMarkup() throws IOException {
+    markupLength = 0;
+    append(read());
+    final char first = read();
+    append(first);
+    switch (first) {
+      case '?':
+        readUntil("?>", 4);
+        break;
+      case '!':
+        final char second = read();
+        append(second);
+        if (second == '-') {
+          readUntil("-->", 7);
+        } else if (second == '[') {
+          readUntil("]]>", 12);
+        } else {
+          throw new IOException("Document type declaration not supported");
+        }
+        break;
+      default:
+        char quote = 0;
+        char c = first;
+        while (c != '>' || quote != 0) {
+          c = read();
+          append(c);
+          if (quote == 0) {
+            if (c == '"' || c == '\'') {
+              quote = c;
+            }
+          } else if (c == quote) {
+            quote = 0;
+          }
+        }
+        break;
+    }
+  }
+
+  private void readUntil(final String end, final int minLength) throws IOException {
+    final int endLength = end.length();
+    while (true) {
+      append(read());
+      if (markupLength >= minLength && endsWith(end, endLength)) {
+        return;
+      }
+    }
+  }
+
+  private boolean endsWith(final String end, final int endLength) {
+    for (int i = 0; i < endLength; i++) {
+      if (markup[markupLength - endLength + i] != end.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void append(final char c) {
+    if (markupLength == markup.length) {
+      markup = Arrays.copyOf(markup, markup.length * 2);
+    }
+    markup[markupLength++] = c;
+  }
+
+  private char read() throws IOException {
+    if (pos == limit && !fill()) {
+      throw new EOFException("Unexpected end of input in markup");
+    }
+    return buf[pos++];
+  }
+
+  private boolean fill() throws IOException {
+    final int read = in.read(buf, 0, buf.length);
+    pos = 0;
+    limit = Math.max(read, 0);
+    return read > 0;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Symbol table of index values and refIDs of a single processing run. Equal strings are stored
+ * once and each symbol has an integer ID assigned in order of first use.
+ *
+ * <p>Symbol table is thread-safe, index terms of topics may be read in parallel. Looking up
+ * existing symbols and getting symbols by ID do not lock, only adding a new symbol does.
+ *
+ * <p>Storage is allocated when the first symbol is added and grows with the table. Small tables,
+ * like one that only holds the symbols of a single index entry, are searched linearly and the
+ * hash index is only created when the table grows past {@value #MAX_SCAN_SIZE} symbols.
+ */
+final class SymbolTable {
+
+  private static final String[] EMPTY = new String[0];
+  private static final int MIN_CAPACITY = 8;
+  private static final int MAX_SCAN_SIZE = 8;
+
+  /** Symbol IDs by symbol, {@code null} until the table is too large to search linearly. */
+  private volatile Map<String, Integer> ids;
+  /** Symbols by ID. Replaced with a larger copy when full, only written while holding the lock. */
+  private volatile String[] symbols = EMPTY;
+
+  private volatile int size;
+
+  /**
+   * Get integer ID of a symbol, adding the symbol to the table if needed.
+   *
+   * @param symbol symbol to look up
+   * @return symbol ID
+   */
+  int id(final String symbol) {
+    final int existing = find(symbol);
+    if (existing != -1) {
+      return existing;
+    }
+    return add(symbol);
+  }
+
+  /** @return symbol ID, {@code -1} if the symbol is not in the table */
+  private int find(final String symbol) {
+    final Map<String, Integer> index = ids;
+    if (index != null) {
+      final Integer id = index.get(symbol);
+      return id != null ? id : -1;
+    }
+    // read size before symbols, symbols are published before size is increased
+    final int n = size;
+    final String[] current = symbols;
+    for (int i = 0; i < n; i++) {
+      if (current[i].equals(symbol)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private synchronized int add(final String symbol) {
+    final int existing = find(symbol);
+    if (existing != -1) {
+      return existing;
+    }
+    final int id = size;
+    String[] current = symbols;
+    if (id == current.length) {
+      current = Arrays.copyOf(current, Math.max(MIN_CAPACITY, id * 2));
+    }
+    current[id] = symbol;
+    // publish the symbol before its ID
+    symbols = current;
+    if (ids != null) {
+      ids.put(symbol, id);
+    } else if (id == MAX_SCAN_SIZE) {
+      final Map<String, Integer> index = new ConcurrentHashMap<>();
+      for (int i = 0; i <= id; i++) {
+        index.put(current[i], i);
+      }
+      ids = index;
+    }
+    size = id + 1;
+    return id;
+  }
+
+  /**
+   * Get the stored instance of a symbol, adding the symbol to the table if needed.
+   *
+   * @param symbol symbol to look up, may be {@code null}
+   * @return stored string equal to the symbol, {@code null} if symbol was {@code null}
+   */
+  String intern(final String symbol) {
+    if (symbol == null) {
+      return null;
+    }
+    final int id = id(symbol);
+    return symbols[id];
+  }
+
+  /**
+   * Get symbol by ID.
+   *
+   * @param id symbol ID
+   * @return symbol
+   */
+  String get(final int id) {
+    return symbols[id];
+  }
+
+  /**
+   * Get number of symbols in the table.
+   *
+   * @return number of symbols
+   */
+  int size() {
+    return size;
+  }
+}
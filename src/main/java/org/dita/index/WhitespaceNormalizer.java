@@ -0,0 +1,111 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+/**
+ * Whitespace normalization of index text.
+ *
+ * <p>Whitespace characters are the XML whitespace characters space, tab, carriage return and line
+ * feed, and additionally vertical tab and form feed. Other Unicode space characters, e.g. no-break
+ * space, are not whitespace and are preserved like in XPath {@code normalize-space()}.
+ *
+ * <p>Methods scan the input once and return the input string itself if it does not need to be
+ * changed.
+ */
+final class WhitespaceNormalizer {
+
+  private WhitespaceNormalizer() {}
+
+  /**
+   * Normalize whitespace like the XPath {@code normalize-space()} function. Leading and trailing
+   * whitespace is removed and other sequences of whitespace characters are replaced with a single
+   * space.
+   *
+   * @param string string to normalize, may be {@code null}
+   * @return normalized string, {@code null} if input was {@code null}
+   */
+  static String normalizeSpace(final String string) {
+    if (string == null || string.isEmpty()) {
+      return string;
+    }
+    final int length = string.length();
+    int start = 0;
+    while (start < length && isWhitespace(string.charAt(start))) {
+      start++;
+    }
+    int end = length;
+    while (end > start && isWhitespace(string.charAt(end - 1))) {
+      end--;
+    }
+    int i = start;
+    while (i < end && !needsReplace(string, i)) {
+      i++;
+    }
+    if (i == end) {
+      return start == 0 && end == length ? string : string.substring(start, end);
+    }
+    final StringBuilder buf = new StringBuilder(end - start);
+    buf.append(string, start, i);
+    boolean space = false;
+    for (; i < end; i++) {
+      final char c = string.charAt(i);
+      if (!isWhitespace(c)) {
+        buf.append(c);
+        space = false;
+      } else if (!space) {
+        buf.append(' ');
+        space = true;
+      }
+    }
+    return buf.toString();
+  }
+
+  /**
+   * Remove trailing whitespace.
+   *
+   * @param string string to strip
+   * @return string without trailing whitespace
+   */
+  static String stripTrailing(final String string) {
+    int end = string.length();
+    while (end > 0 && isWhitespace(string.charAt(end - 1))) {
+      end--;
+    }
+    return end == string.length() ? string : string.substring(0, end);
+  }
+
+  /**
+   * Test if character is whitespace.
+   *
+   * @param c character to test
+   * @return {@code true} if character is whitespace, otherwise {@code false}
+   */
+  static boolean isWhitespace(final char c) {
+    switch (c) {
+      case ' ':
+      case '\t':
+      case '\n':
+      case '\r':
+      case '\u000B':
+      case '\f':
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Test if character at index is whitespace other than a single space. The character after a
+   * whitespace character must exist, i.e. trailing whitespace has been skipped.
+   */
+  private static boolean needsReplace(final String string, final int i) {
+    final char c = string.charAt(i);
+    return isWhitespace(c) && (c != ' ' || isWhitespace(string.charAt(i + 1)));
+  }
+}
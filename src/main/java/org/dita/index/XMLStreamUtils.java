@@ -0,0 +1,283 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static javax.xml.XMLConstants.NULL_NS_URI;
+import static javax.xml.XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/** StAX helper methods for moving XML between streams and DOM fragments. */
+final class XMLStreamUtils {
+
+  private XMLStreamUtils() {}
+
+  /**
+   * Copy current reader event to writer. Start document and end document events are ignored.
+   *
+   * @param reader reader positioned at the event to copy
+   * @param writer writer to copy the event to
+   */
+  static void copyEvent(final XMLStreamReader reader, final XMLStreamWriter writer)
+      throws XMLStreamException {
+    switch (reader.getEventType()) {
+      case XMLStreamConstants.START_ELEMENT:
+        copyStartElement(reader, writer);
+        break;
+      case XMLStreamConstants.END_ELEMENT:
+        writer.writeEndElement();
+        break;
+      case XMLStreamConstants.CHARACTERS:
+      case XMLStreamConstants.SPACE:
+        writer.writeCharacters(
+            reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        break;
+      case XMLStreamConstants.CDATA:
+        writer.writeCData(reader.getText());
+        break;
+      case XMLStreamConstants.COMMENT:
+        writer.writeComment(reader.getText());
+        break;
+      case XMLStreamConstants.PROCESSING_INSTRUCTION:
+        writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+        break;
+      case XMLStreamConstants.ENTITY_REFERENCE:
+        writer.writeEntityRef(reader.getLocalName());
+        break;
+      case XMLStreamConstants.DTD:
+        writer.writeDTD(reader.getText());
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static void copyStartElement(final XMLStreamReader reader, final XMLStreamWriter writer)
+      throws XMLStreamException {
+    writer.writeStartElement(
+        nonNull(reader.getPrefix()), reader.getLocalName(), nonNull(reader.getNamespaceURI()));
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      final String prefix = reader.getNamespacePrefix(i);
+      if (prefix == null || prefix.isEmpty()) {
+        writer.writeDefaultNamespace(nonNull(reader.getNamespaceURI(i)));
+      } else {
+        writer.writeNamespace(prefix, nonNull(reader.getNamespaceURI(i)));
+      }
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      final String attrNamespace = nonNull(reader.getAttributeNamespace(i));
+      if (attrNamespace.isEmpty()) {
+        writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+      } else {
+        writer.writeAttribute(
+            nonNull(reader.getAttributePrefix(i)),
+            attrNamespace,
+            reader.getAttributeLocalName(i),
+            reader.getAttributeValue(i));
+      }
+    }
+  }
+
+  /**
+   * Read current element into a DOM element. After the method returns, the reader is positioned at
+   * the end element event of the read element.
+   *
+   * @param reader reader positioned at a start element event
+   * @param document document used to create nodes, the returned element is not attached to it
+   * @return read element
+   */
+  static Element readElement(final XMLStreamReader reader, final Document document)
+      throws XMLStreamException {
+    final Element root = createElement(reader, document);
+    Node current = root;
+    while (current != null) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          final Element child = createElement(reader, document);
+          current.appendChild(child);
+          current = child;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          current = current == root ? null : current.getParentNode();
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          current.appendChild(document.createTextNode(reader.getText()));
+          break;
+        case XMLStreamConstants.CDATA:
+          current.appendChild(document.createCDATASection(reader.getText()));
+          break;
+        case XMLStreamConstants.COMMENT:
+          current.appendChild(document.createComment(reader.getText()));
+          break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+          current.appendChild(
+              document.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+          break;
+        case XMLStreamConstants.ENTITY_REFERENCE:
+          current.appendChild(document.createEntityReference(reader.getLocalName()));
+          break;
+        default:
+          break;
+      }
+    }
+    return root;
+  }
+
+  private static Element createElement(final XMLStreamReader reader, final Document document) {
+    final String prefix = reader.getPrefix();
+    final Element element =
+        document.createElementNS(
+            emptyToNull(reader.getNamespaceURI()),
+            prefix == null || prefix.isEmpty()
+                ? reader.getLocalName()
+                : prefix + ":" + reader.getLocalName());
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      final String nsPrefix = reader.getNamespacePrefix(i);
+      element.setAttributeNS(
+          XMLNS_ATTRIBUTE_NS_URI,
+          nsPrefix == null || nsPrefix.isEmpty() ? "xmlns" : "xmlns:" + nsPrefix,
+          nonNull(reader.getNamespaceURI(i)));
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      final String attrPrefix = reader.getAttributePrefix(i);
+      element.setAttributeNS(
+          emptyToNull(reader.getAttributeNamespace(i)),
+          attrPrefix == null || attrPrefix.isEmpty()
+              ? reader.getAttributeLocalName(i)
+              : attrPrefix + ":" + reader.getAttributeLocalName(i),
+          reader.getAttributeValue(i));
+    }
+    return element;
+  }
+
+  /**
+   * Write DOM node to writer. Namespace declarations are added for element and attribute names
+   * whose prefix is not bound in the writer's namespace context.
+   *
+   * @param node node to write
+   * @param writer writer to write the node to
+   */
+  static void writeNode(final Node node, final XMLStreamWriter writer)
+      throws XMLStreamException {
+    switch (node.getNodeType()) {
+      case Node.ELEMENT_NODE:
+        writeElement((Element) node, writer);
+        break;
+      case Node.TEXT_NODE:
+        writer.writeCharacters(node.getNodeValue());
+        break;
+      case Node.CDATA_SECTION_NODE:
+        writer.writeCData(node.getNodeValue());
+        break;
+      case Node.COMMENT_NODE:
+        writer.writeComment(node.getNodeValue());
+        break;
+      case Node.PROCESSING_INSTRUCTION_NODE:
+        writer.writeProcessingInstruction(node.getNodeName(), node.getNodeValue());
+        break;
+      case Node.ENTITY_REFERENCE_NODE:
+        writer.writeEntityRef(node.getNodeName());
+        break;
+      case Node.DOCUMENT_FRAGMENT_NODE:
+      case Node.DOCUMENT_NODE:
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+          writeNode(child, writer);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static void writeElement(final Element element, final XMLStreamWriter writer)
+      throws XMLStreamException {
+    final String prefix = nonNull(element.getPrefix());
+    final String namespace = nonNull(element.getNamespaceURI());
+    final boolean empty = !element.hasChildNodes();
+    // writing the start tag binds the prefix in the writer's context, so check before it
+    final boolean bound = isBound(prefix, namespace, writer);
+    if (empty) {
+      writer.writeEmptyElement(prefix, getLocalName(element), namespace);
+    } else {
+      writer.writeStartElement(prefix, getLocalName(element), namespace);
+    }
+    if (!bound) {
+      writeNamespace(prefix, namespace, writer);
+    }
+    final NamedNodeMap attributes = element.getAttributes();
+    for (int i = 0; i < attributes.getLength(); i++) {
+      final Attr attr = (Attr) attributes.item(i);
+      if (XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI())) {
+        final String nsPrefix = attr.getPrefix() == null ? "" : attr.getLocalName();
+        declareNamespace(nsPrefix, attr.getValue(), writer);
+      }
+    }
+    for (int i = 0; i < attributes.getLength(); i++) {
+      final Attr attr = (Attr) attributes.item(i);
+      final String attrNamespace = nonNull(attr.getNamespaceURI());
+      if (attrNamespace.isEmpty()) {
+        writer.writeAttribute(getLocalName(attr), attr.getValue());
+      } else if (!XMLNS_ATTRIBUTE_NS_URI.equals(attrNamespace)) {
+        final String attrPrefix = nonNull(attr.getPrefix());
+        declareNamespace(attrPrefix, attrNamespace, writer);
+        writer.writeAttribute(attrPrefix, attrNamespace, getLocalName(attr), attr.getValue());
+      }
+    }
+    if (!empty) {
+      for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+        writeNode(child, writer);
+      }
+      writer.writeEndElement();
+    }
+  }
+
+  private static void declareNamespace(
+      final String prefix, final String namespace, final XMLStreamWriter writer)
+      throws XMLStreamException {
+    if (!isBound(prefix, namespace, writer)) {
+      writeNamespace(prefix, namespace, writer);
+    }
+  }
+
+  private static boolean isBound(
+      final String prefix, final String namespace, final XMLStreamWriter writer) {
+    return namespace.equals(nonNull(writer.getNamespaceContext().getNamespaceURI(prefix)));
+  }
+
+  private static void writeNamespace(
+      final String prefix, final String namespace, final XMLStreamWriter writer)
+      throws XMLStreamException {
+    if (prefix.isEmpty()) {
+      writer.writeDefaultNamespace(namespace);
+    } else if (!namespace.isEmpty()) {
+      writer.writeNamespace(prefix, namespace);
+    }
+  }
+
+  private static String getLocalName(final Node node) {
+    return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+  }
+
+  private static String nonNull(final String value) {
+    return value == null ? NULL_NS_URI : value;
+  }
+
+  private static String emptyToNull(final String value) {
+    return value == null || value.isEmpty() ? null : value;
+  }
+}
@@ -10,7 +10,7 @@ package org.dita.index.configuration;
 
 import org.dita.index.IndexCollator;
 
-class CharRange {
+final class CharRange {
 
   private final String start;
   private final String end;
@@ -20,6 +20,14 @@ class CharRange {
     this.end = end;
   }
 
+  String getStart() {
+    return start;
+  }
+
+  String getEnd() {
+    return end;
+  }
+
   public boolean isInRange(final String value, final IndexCollator collator) {
     return (collator.compare(value, start) > 0) && (collator.compare(value, end) < 0);
   }
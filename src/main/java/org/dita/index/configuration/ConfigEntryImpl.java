@@ -32,25 +32,31 @@ See the accompanying LICENSE file for applicable license.
 package org.dita.index.configuration;
 
 import com.google.common.annotations.VisibleForTesting;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.dita.index.IndexCollator;
 
+/** Immutable index group configuration entry. */
 @VisibleForTesting
-public class ConfigEntryImpl implements ConfigEntry {
+public final class ConfigEntryImpl implements ConfigEntry {
   private final String label;
   private final String key;
   private final List<String> members;
-  private final List<CharRange> ranges = new ArrayList<>();
+  private final List<CharRange> ranges;
 
   public ConfigEntryImpl(final String label, final String key, final List<String> members) {
-    this.label = label;
-    this.key = key;
-    this.members = members;
+    this(label, key, members, Collections.emptyList());
   }
 
-  public void addRange(final CharRange range) {
-    ranges.add(range);
+  ConfigEntryImpl(
+      final String label,
+      final String key,
+      final List<String> members,
+      final List<CharRange> ranges) {
+    this.label = label;
+    this.key = key;
+    this.members = List.copyOf(members);
+    this.ranges = List.copyOf(ranges);
   }
 
   @Override
@@ -68,6 +74,10 @@ public class ConfigEntryImpl implements ConfigEntry {
     return this.members;
   }
 
+  List<CharRange> getRanges() {
+    return ranges;
+  }
+
   @Override
   public boolean isInRange(final String value, final IndexCollator collator) {
     if (!value.isEmpty()) {
@@ -39,7 +39,8 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-public class IndexConfiguration {
+/** Immutable index configuration. Instances are safe to share between threads. */
+public final class IndexConfiguration {
 
   private static final String ELEM_INDEX_CONFIGURATION_SET = "index.configuration.set";
   private static final String ELEM_INDEX_CONFIGURATION = "index.configuration";
@@ -52,22 +53,21 @@ public class IndexConfiguration {
   private static final String ATTR_START_RANGE = "start-range";
   private static final String ATTR_END_RANGE = "end-range";
 
-  private final List<ConfigEntry> entries = new ArrayList<>();
+  private final List<ConfigEntry> entries;
 
-  private IndexConfiguration() {}
+  IndexConfiguration(final List<ConfigEntry> entries) {
+    this.entries = List.copyOf(entries);
+  }
 
+  /** @return unmodifiable list of configuration entries */
   public List<ConfigEntry> getEntries() {
     return entries;
   }
 
-  private void addEntry(final ConfigEntry entry) {
-    this.entries.add(entry);
-  }
-
   public static IndexConfiguration parse(final Document document) throws ParseException {
     String message = "Invalid configuration format";
 
-    final IndexConfiguration indexConfiguration = new IndexConfiguration();
+    final List<ConfigEntry> entries = new ArrayList<>();
 
     final NodeList indexConfigurationSet =
         document.getElementsByTagName(ELEM_INDEX_CONFIGURATION_SET);
@@ -131,15 +131,11 @@ public class IndexConfiguration {
           }
           groupMembers = nodeValues;
         }
-        final ConfigEntryImpl configEntry = new ConfigEntryImpl(labelValue, keyValue, groupMembers);
-        for (CharRange charRange : rangeList) {
-          configEntry.addRange(charRange);
-        }
-        indexConfiguration.addEntry(configEntry);
+        entries.add(new ConfigEntryImpl(labelValue, keyValue, groupMembers, rangeList));
       }
     }
 
-    return indexConfiguration;
+    return new IndexConfiguration(entries);
   }
 
   private static String getNodeValue(final Node node) {
@@ -0,0 +1,114 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index.configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.xml.sax.SAXException;
+
+/**
+ * Thread-safe cache of parsed index configurations. Configurations are keyed by canonical file
+ * path and are parsed again when the file's last modification time or size changes. The least
+ * recently used configuration is evicted when the cache is full. Bundled configurations are read
+ * from their precompiled binary form when available.
+ */
+public final class IndexConfigurationCache {
+
+  private static final int DEFAULT_MAXIMUM_SIZE = 32;
+  private static final IndexConfigurationCache INSTANCE =
+      new IndexConfigurationCache(DEFAULT_MAXIMUM_SIZE);
+
+  private final Map<String, CacheEntry> cache;
+
+  IndexConfigurationCache(final int maximumSize) {
+    cache =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(final Map.Entry<String, CacheEntry> eldest) {
+            return size() > maximumSize;
+          }
+        };
+  }
+
+  /** @return process-wide cache instance */
+  public static IndexConfigurationCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Get parsed index configuration. Parses the configuration file if it is not cached or has
+   * changed since it was cached.
+   *
+   * @param file index configuration file
+   * @return index configuration
+   */
+  public IndexConfiguration get(final File file) throws ParseException, SAXException, IOException {
+    final String path = file.getCanonicalPath();
+    final long lastModified = file.lastModified();
+    final long length = file.length();
+    synchronized (cache) {
+      final CacheEntry entry = cache.get(path);
+      if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+        return entry.configuration;
+      }
+    }
+    final IndexConfiguration configuration = parse(file);
+    synchronized (cache) {
+      cache.put(path, new CacheEntry(lastModified, length, configuration));
+    }
+    return configuration;
+  }
+
+  /** Remove all cached configurations. */
+  public void clear() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  private static IndexConfiguration parse(final File file)
+      throws ParseException, SAXException, IOException {
+    final IndexConfiguration precompiled = IndexConfigurationFormat.load(file);
+    if (precompiled != null) {
+      return precompiled;
+    }
+    final DocumentBuilder documentBuilder;
+    try {
+      final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      documentBuilder = factory.newDocumentBuilder();
+    } catch (final ParserConfigurationException e) {
+      throw new IllegalStateException(e);
+    }
+    return IndexConfiguration.parse(documentBuilder.parse(file));
+  }
+
+  private static final class CacheEntry {
+    final long lastModified;
+    final long length;
+    final IndexConfiguration configuration;
+
+    CacheEntry(final long lastModified, final long length, final IndexConfiguration configuration) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.configuration = configuration;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index.configuration;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.xml.sax.SAXException;
+
+/**
+ * Build time compiler of XML index configurations into the binary format read by {@link
+ * IndexConfigurationCache}.
+ *
+ * <p>Usage: {@code IndexConfigurationCompiler <source directory> <destination directory>}
+ */
+public final class IndexConfigurationCompiler {
+
+  private IndexConfigurationCompiler() {}
+
+  public static void main(final String[] args)
+      throws IOException, SAXException, ParseException, ParserConfigurationException {
+    if (args.length != 2) {
+      throw new IllegalArgumentException(
+          "Usage: IndexConfigurationCompiler <source directory> <destination directory>");
+    }
+    final File src = new File(args[0]);
+    final File dst = new File(args[1]);
+    final File[] files = src.listFiles((dir, name) -> name.endsWith(".xml"));
+    if (files == null) {
+      throw new IOException("Failed to list " + src);
+    }
+    if (!dst.exists() && !dst.mkdirs()) {
+      throw new IOException("Failed to create " + dst);
+    }
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    final DocumentBuilder documentBuilder = factory.newDocumentBuilder();
+    for (final File file : files) {
+      final String name = file.getName();
+      final File out =
+          new File(
+              dst,
+              name.substring(0, name.length() - ".xml".length())
+                  + IndexConfigurationFormat.EXTENSION);
+      final IndexConfiguration configuration =
+          IndexConfiguration.parse(documentBuilder.parse(file));
+      try (DataOutputStream dataOut =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(out)))) {
+        IndexConfigurationFormat.write(configuration, file, dataOut);
+      }
+    }
+  }
+}
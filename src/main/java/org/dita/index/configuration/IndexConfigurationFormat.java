@@ -0,0 +1,151 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index.configuration;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary index configuration format. Bundled XML configurations are compiled into this format at
+ * build time and stored in the classpath as {@code index/<name>.bin}. Each binary records the size
+ * and CRC-32 checksum of its source XML file, and a binary is only used when it matches the
+ * configuration file being loaded.
+ *
+ * <pre>
+ * int     magic
+ * short   version
+ * long    source size
+ * long    source checksum
+ * int     entry count
+ * entry*  utf key, utf label, int member count, utf member*, int range count, (utf start, utf end)*
+ * </pre>
+ */
+final class IndexConfigurationFormat {
+
+  static final String EXTENSION = ".bin";
+  private static final int MAGIC = 0x44495849;
+  private static final short VERSION = 1;
+  private static final String RESOURCE_DIR = "/index/";
+
+  private IndexConfigurationFormat() {}
+
+  /**
+   * Load precompiled configuration for an XML configuration file from the classpath.
+   *
+   * @param file XML configuration file
+   * @return precompiled configuration, or {@code null} if none matches the file
+   */
+  static IndexConfiguration load(final File file) throws IOException {
+    final String name = file.getName();
+    if (!name.endsWith(".xml")) {
+      return null;
+    }
+    final String resource =
+        RESOURCE_DIR + name.substring(0, name.length() - ".xml".length()) + EXTENSION;
+    try (InputStream res = IndexConfigurationFormat.class.getResourceAsStream(resource)) {
+      if (res == null) {
+        return null;
+      }
+      return read(file, res);
+    }
+  }
+
+  /**
+   * Read binary configuration.
+   *
+   * @param file XML configuration file the binary must match
+   * @param binary binary configuration
+   * @return configuration, or {@code null} if binary does not match the file
+   */
+  static IndexConfiguration read(final File file, final InputStream binary) throws IOException {
+    final DataInputStream in = new DataInputStream(new BufferedInputStream(binary));
+    if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+      return null;
+    }
+    final long size = in.readLong();
+    final long checksum = in.readLong();
+    if (size != file.length() || checksum != checksum(file)) {
+      return null;
+    }
+    return read(in);
+  }
+
+  /**
+   * Write configuration in binary format.
+   *
+   * @param configuration configuration to write
+   * @param source source XML configuration file
+   * @param out output to write to
+   */
+  static void write(final IndexConfiguration configuration, final File source, final DataOutput out)
+      throws IOException {
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+    out.writeLong(source.length());
+    out.writeLong(checksum(source));
+    out.writeInt(configuration.getEntries().size());
+    for (final ConfigEntry entry : configuration.getEntries()) {
+      final ConfigEntryImpl impl = (ConfigEntryImpl) entry;
+      out.writeUTF(impl.getKey());
+      out.writeUTF(impl.getLabel());
+      out.writeInt(impl.getGroupMembers().size());
+      for (final String member : impl.getGroupMembers()) {
+        out.writeUTF(member);
+      }
+      out.writeInt(impl.getRanges().size());
+      for (final CharRange range : impl.getRanges()) {
+        out.writeUTF(range.getStart());
+        out.writeUTF(range.getEnd());
+      }
+    }
+  }
+
+  /** Read configuration entries, the header has already been read. */
+  private static IndexConfiguration read(final DataInput in) throws IOException {
+    final int entryCount = in.readInt();
+    final List<ConfigEntry> entries = new ArrayList<>(entryCount);
+    for (int i = 0; i < entryCount; i++) {
+      final String key = in.readUTF();
+      final String label = in.readUTF();
+      final int memberCount = in.readInt();
+      final List<String> members = new ArrayList<>(memberCount);
+      for (int j = 0; j < memberCount; j++) {
+        members.add(in.readUTF());
+      }
+      final int rangeCount = in.readInt();
+      final List<CharRange> ranges = new ArrayList<>(rangeCount);
+      for (int j = 0; j < rangeCount; j++) {
+        ranges.add(new CharRange(in.readUTF(), in.readUTF()));
+      }
+      entries.add(new ConfigEntryImpl(label, key, members, ranges));
+    }
+    return new IndexConfiguration(entries);
+  }
+
+  private static long checksum(final File file) throws IOException {
+    final CRC32 crc = new CRC32();
+    final byte[] buf = new byte[8192];
+    try (InputStream in = new FileInputStream(file)) {
+      int len;
+      while ((len = in.read(buf)) != -1) {
+        crc.update(buf, 0, len);
+      }
+    }
+    return crc.getValue();
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static org.dita.dost.util.Constants.ATTRIBUTE_NAME_CLASS;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.dita.index.configuration.ConfigEntry;
+import org.dita.index.configuration.IndexConfiguration;
+import org.dita.index.configuration.ParseException;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Generator for synthetic merged map documents. Output is deterministic for the same settings.
+ *
+ * <p>Each topic has a title, index terms in its prolog and a body paragraph. Index terms are spread
+ * evenly over topics and nested up to the configured depth; the term count includes subterms.
+ * Index see and see also references are added to leaf terms only. Ranges are additional index
+ * terms: a start term in one topic and an empty end term in the same or a later topic. Index term
+ * values are drawn from the letter group members of bundled locale configurations, each value
+ * from a single locale picked at random.
+ */
+final class CorpusGenerator {
+
+  private int topics = 100;
+  private int terms = 1000;
+  private int depth = 2;
+  private double seeRatio;
+  private double seeAlsoRatio;
+  private int ranges;
+  private int vocabulary;
+  private long seed = 42;
+  private List<List<String>> alphabets;
+
+  /**
+   * @param topics number of topics
+   * @return this generator
+   */
+  CorpusGenerator topics(final int topics) {
+    if (topics < 1) {
+      throw new IllegalArgumentException("Number of topics must be positive: " + topics);
+    }
+    this.topics = topics;
+    return this;
+  }
+
+  /**
+   * @param terms number of index terms, including subterms but excluding range terms
+   * @return this generator
+   */
+  CorpusGenerator terms(final int terms) {
+    if (terms < 0) {
+      throw new IllegalArgumentException("Number of terms must not be negative: " + terms);
+    }
+    this.terms = terms;
+    return this;
+  }
+
+  /**
+   * @param depth maximum index term nesting depth, top level terms are at depth 1
+   * @return this generator
+   */
+  CorpusGenerator depth(final int depth) {
+    if (depth < 1) {
+      throw new IllegalArgumentException("Depth must be positive: " + depth);
+    }
+    this.depth = depth;
+    return this;
+  }
+
+  /**
+   * @param seeRatio ratio of leaf terms with an index see reference
+   * @param seeAlsoRatio ratio of leaf terms with an index see also reference
+   * @return this generator
+   */
+  CorpusGenerator see(final double seeRatio, final double seeAlsoRatio) {
+    if (seeRatio < 0 || seeAlsoRatio < 0 || seeRatio + seeAlsoRatio > 1) {
+      throw new IllegalArgumentException("Invalid see ratios: " + seeRatio + ", " + seeAlsoRatio);
+    }
+    this.seeRatio = seeRatio;
+    this.seeAlsoRatio = seeAlsoRatio;
+    return this;
+  }
+
+  /**
+   * @param ranges number of start and end range pairs
+   * @return this generator
+   */
+  CorpusGenerator ranges(final int ranges) {
+    if (ranges < 0) {
+      throw new IllegalArgumentException("Number of ranges must not be negative: " + ranges);
+    }
+    this.ranges = ranges;
+    return this;
+  }
+
+  /**
+   * Limit the number of distinct values. Repeated values are merged into a single index entry by
+   * index processing. By default every value is generated separately and duplicates are rare.
+   *
+   * @param vocabulary number of distinct values, {@code 0} for no limit
+   * @return this generator
+   */
+  CorpusGenerator vocabulary(final int vocabulary) {
+    if (vocabulary < 0) {
+      throw new IllegalArgumentException("Vocabulary size must not be negative: " + vocabulary);
+    }
+    this.vocabulary = vocabulary;
+    return this;
+  }
+
+  /**
+   * @param seed random seed
+   * @return this generator
+   */
+  CorpusGenerator seed(final long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /**
+   * Set script mix. Values are drawn from the letter group members of the bundled configurations.
+   *
+   * @param locales bundled configuration locales, e.g. {@code en} and {@code zh_CN}
+   * @return this generator
+   */
+  CorpusGenerator locales(final String... locales)
+      throws IOException, SAXException, ParserConfigurationException, ParseException {
+    final List<List<String>> res = new ArrayList<>();
+    for (final String locale : locales) {
+      res.add(alphabet(locale, configuration(locale)));
+    }
+    this.alphabets = res;
+    return this;
+  }
+
+  /**
+   * Parse bundled index configuration.
+   *
+   * @param locale configuration locale, e.g. {@code zh_CN}
+   */
+  static IndexConfiguration configuration(final String locale)
+      throws IOException, SAXException, ParserConfigurationException, ParseException {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    try (InputStream in = CorpusGenerator.class.getResourceAsStream("/index/" + locale + ".xml")) {
+      if (in == null) {
+        throw new IllegalArgumentException("Bundled configuration not found: " + locale);
+      }
+      return IndexConfiguration.parse(factory.newDocumentBuilder().parse(in));
+    }
+  }
+
+  private static List<String> alphabet(
+      final String locale, final IndexConfiguration configuration) {
+    final List<String> res = new ArrayList<>();
+    for (final ConfigEntry entry : configuration.getEntries()) {
+      for (final String member : entry.getGroupMembers()) {
+        if (!member.isEmpty() && Character.isLetter(member.codePointAt(0))) {
+          res.add(member);
+        }
+      }
+    }
+    if (res.isEmpty()) {
+      throw new IllegalArgumentException("Configuration has no letter group members: " + locale);
+    }
+    return res;
+  }
+
+  /**
+   * Generate merged map document. The document is serialized and parsed to get the same tree as
+   * when reading input from a file.
+   *
+   * @return new document
+   */
+  Document document()
+      throws IOException, SAXException, ParserConfigurationException, XMLStreamException {
+    final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    write(buf);
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    return factory.newDocumentBuilder().parse(new ByteArrayInputStream(buf.toByteArray()));
+  }
+
+  /**
+   * Generate merged map document as UTF-8. Documents are written without building a tree, so this
+   * should be used for large inputs.
+   *
+   * @param out output stream, will not be closed
+   */
+  void write(final OutputStream out) throws XMLStreamException {
+    final XMLStreamWriter writer =
+        XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+    writer.writeStartDocument("UTF-8", "1.0");
+    write(writer);
+    writer.close();
+  }
+
+  private void write(final XMLStreamWriter writer) throws XMLStreamException {
+    if (alphabets == null) {
+      try {
+        locales("en");
+      } catch (final IOException | SAXException | ParserConfigurationException | ParseException e) {
+        throw new IllegalStateException("Failed to read default configuration", e);
+      }
+    }
+    final Random random = new Random(seed);
+    final String[] words = new String[vocabulary];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = word(random);
+    }
+    final Values values =
+        words.length > 0 ? () -> words[random.nextInt(words.length)] : () -> word(random);
+
+    final int[] rangeEnds = new int[ranges];
+    final Map<Integer, List<Integer>> endsByTopic = new HashMap<>();
+    for (int i = 0; i < ranges; i++) {
+      final int start = (int) ((long) i * topics / ranges);
+      rangeEnds[i] = start + random.nextInt(Math.min(topics - start, 10));
+      endsByTopic.computeIfAbsent(rangeEnds[i], k -> new ArrayList<>()).add(i);
+    }
+
+    writer.writeStartElement("map");
+    writer.writeAttribute(ATTRIBUTE_NAME_CLASS, "- map/map ");
+    int range = 0;
+    for (int topic = 0; topic < topics; topic++) {
+      writer.writeStartElement("topic");
+      writer.writeAttribute(ATTRIBUTE_NAME_CLASS, "- topic/topic ");
+      writer.writeAttribute("id", "topic" + topic);
+      writeElement(writer, "title", "- topic/title ", "Topic " + topic);
+      writer.writeStartElement("prolog");
+      writer.writeAttribute(ATTRIBUTE_NAME_CLASS, "- topic/prolog ");
+      writer.writeStartElement("metadata");
+      writer.writeAttribute(ATTRIBUTE_NAME_CLASS, "- topic/metadata ");
+      writer.writeStartElement("keywords");
+      writer.writeAttribute(ATTRIBUTE_NAME_CLASS, "- topic/keywords ");
+      int remaining =
+          (int) ((long) (topic + 1) * terms / topics) - (int) ((long) topic * terms / topics);
+      while (remaining > 0) {
+        final int levels = Math.min(1 + random.nextInt(depth), remaining);
+        writeIndexterm(writer, levels, values, random);
+        remaining -= levels;
+      }
+      while (range < ranges && (int) ((long) range * topics / ranges) == topic) {
+        writer.writeStartElement("indexterm");
+        writer.writeAttribute(ATTRIBUTE_NAME_CLASS, "- topic/indexterm ");
+        writer.writeAttribute("start", "range" + range);
+        writer.writeCharacters(values.next());
+        writer.writeEndElement();
+        range++;
+      }
+      for (final int end : endsByTopic.getOrDefault(topic, List.of())) {
+        writer.writeStartElement("indexterm");
+        writer.writeAttribute(ATTRIBUTE_NAME_CLASS, "- topic/indexterm ");
+        writer.writeAttribute("end", "range" + end);
+        writer.writeEndElement();
+      }
+      writer.writeEndElement(); // keywords
+      writer.writeEndElement(); // metadata
+      writer.writeEndElement(); // prolog
+      writer.writeStartElement("body");
+      writer.writeAttribute(ATTRIBUTE_NAME_CLASS, "- topic/body ");
+      writeElement(writer, "p", "- topic/p ", "Text " + topic);
+      writer.writeEndElement(); // body
+      writer.writeEndElement(); // topic
+    }
+    writer.writeEndElement(); // map
+    writer.writeEndDocument();
+  }
+
+  private void writeIndexterm(
+      final XMLStreamWriter writer, final int levels, final Values values, final Random random)
+      throws XMLStreamException {
+    writer.writeStartElement("indexterm");
+    writer.writeAttribute(ATTRIBUTE_NAME_CLASS, "- topic/indexterm ");
+    writer.writeCharacters(values.next());
+    if (levels > 1) {
+      writeIndexterm(writer, levels - 1, values, random);
+    } else {
+      final double see = random.nextDouble();
+      if (see < seeRatio) {
+        writeElement(
+            writer, "index-see", "+ topic/index-base indexing-d/index-see ", values.next());
+      } else if (see < seeRatio + seeAlsoRatio) {
+        writeElement(
+            writer,
+            "index-see-also",
+            "+ topic/index-base indexing-d/index-see-also ",
+            values.next());
+      }
+    }
+    writer.writeEndElement();
+  }
+
+  private static void writeElement(
+      final XMLStreamWriter writer, final String name, final String cls, final String text)
+      throws XMLStreamException {
+    writer.writeStartElement(name);
+    writer.writeAttribute(ATTRIBUTE_NAME_CLASS, cls);
+    writer.writeCharacters(text);
+    writer.writeEndElement();
+  }
+
+  private String word(final Random random) {
+    final List<String> alphabet = alphabets.get(random.nextInt(alphabets.size()));
+    final StringBuilder buf = new StringBuilder();
+    final int length = 3 + random.nextInt(6);
+    for (int i = 0; i < length; i++) {
+      buf.append(alphabet.get(random.nextInt(alphabet.size())));
+    }
+    return buf.toString();
+  }
+
+  @FunctionalInterface
+  private interface Values {
+    String next();
+  }
+}
@@ -0,0 +1,128 @@
+package org.dita.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Locale;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.dita.index.configuration.IndexConfiguration;
+import org.dita.index.configuration.ParseException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+import org.xmlunit.matchers.CompareMatcher;
+
+public class CorpusGeneratorTest {
+
+  /** Number of index terms in scale test, set to 1000000 for production scale. */
+  private static final int SCALE_TERMS = Integer.getInteger("org.dita.index.corpus.terms", 10_000);
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void document()
+      throws IOException, SAXException, ParserConfigurationException, ParseException,
+          XMLStreamException {
+    final Document doc = generator().document();
+
+    assertEquals(10, doc.getElementsByTagName("topic").getLength());
+    final NodeList indexterms = doc.getElementsByTagName("indexterm");
+    int terms = 0;
+    int starts = 0;
+    int ends = 0;
+    int depth = 0;
+    for (int i = 0; i < indexterms.getLength(); i++) {
+      final Element indexterm = (Element) indexterms.item(i);
+      if (indexterm.hasAttribute("start")) {
+        starts++;
+      } else if (indexterm.hasAttribute("end")) {
+        ends++;
+      } else {
+        terms++;
+        depth = Math.max(depth, depth(indexterm));
+      }
+    }
+    assertEquals(200, terms);
+    assertEquals(5, starts);
+    assertEquals(5, ends);
+    assertEquals(3, depth);
+    assertTrue(doc.getElementsByTagName("index-see").getLength() > 0);
+    assertTrue(doc.getElementsByTagName("index-see-also").getLength() > 0);
+    assertThat(generator().document(), CompareMatcher.isIdenticalTo(doc));
+  }
+
+  @Test
+  public void process_scale()
+      throws IOException, SAXException, ParserConfigurationException, ParseException,
+          XMLStreamException {
+    final File src = temporaryFolder.newFile("src.xml");
+    final File dst = temporaryFolder.newFile("dst.xml");
+    try (OutputStream out = Files.newOutputStream(src.toPath())) {
+      new CorpusGenerator()
+          .topics(Math.max(1, SCALE_TERMS / 10))
+          .terms(SCALE_TERMS)
+          .depth(3)
+          .see(0.05, 0.05)
+          .ranges(SCALE_TERMS / 1000)
+          .vocabulary(Math.max(1, SCALE_TERMS / 2))
+          .write(out);
+    }
+
+    final IndexStreamPreprocessor processor =
+        new IndexStreamPreprocessor("prefix", "namespace", false);
+    processor.setLogger(new DummyLogger());
+    final IndexStatistics statistics = new IndexStatistics();
+    processor.setStatistics(statistics);
+    final IndexConfiguration configuration = CorpusGenerator.configuration("en");
+    try (InputStream in = Files.newInputStream(src.toPath());
+        OutputStream out = Files.newOutputStream(dst.toPath())) {
+      final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+      final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+      final IndexPreprocessResult result =
+          processor.process(reader, writer, configuration, Locale.ENGLISH);
+      writer.close();
+
+      assertTrue(result.indexEntries.size() > 0);
+      assertTrue(result.uncategorizedEntries.isEmpty());
+    }
+    // see references are nested below the deepest index terms
+    assertEquals(4, statistics.getDepth());
+    assertTrue(statistics.getGroups() > 0);
+  }
+
+  private static CorpusGenerator generator()
+      throws IOException, SAXException, ParserConfigurationException, ParseException {
+    return new CorpusGenerator()
+        .locales("en", "ja", "ru")
+        .topics(10)
+        .terms(200)
+        .depth(3)
+        .see(0.2, 0.2)
+        .ranges(5)
+        .vocabulary(50);
+  }
+
+  private static int depth(final Element indexterm) {
+    int depth = 0;
+    for (Element e = indexterm; e != null && e.getTagName().equals("indexterm"); ) {
+      depth++;
+      e = e.getParentNode() instanceof Element ? (Element) e.getParentNode() : null;
+    }
+    return depth;
+  }
+}
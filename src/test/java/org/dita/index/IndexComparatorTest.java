@@ -10,7 +10,10 @@ package org.dita.index;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import org.junit.Test;
 
@@ -35,4 +38,19 @@ public class IndexComparatorTest {
     assertEquals(0, comparator.compare(o1, o1));
     assertEquals(-1, comparator.compare(o2, o1));
   }
+
+  @Test
+  public void sort() {
+    final IndexComparator comparator = new IndexComparator(Locale.ENGLISH);
+    final List<IndexEntry> entries =
+        Arrays.asList(
+            new IndexEntryImpl("foo", null, "foo", Collections.emptyList()),
+            new IndexEntryImpl("Bar", null, "Bar", Collections.emptyList()),
+            new IndexEntryImpl("baz", "bar", "baz", Collections.emptyList()),
+            new IndexEntryImpl("bar", null, "bar", Collections.emptyList()),
+            new IndexEntryImpl("qux", "a", "qux", Collections.emptyList()));
+    final List<IndexEntry> exp = new ArrayList<>(entries);
+    exp.sort(comparator);
+    assertEquals(exp, comparator.sort(entries));
+  }
 }
@@ -0,0 +1,181 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Locale;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import org.dita.index.configuration.IndexConfiguration;
+import org.dita.index.configuration.ParseException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+import org.xmlunit.matchers.CompareMatcher;
+
+public class IndexCopyPreprocessorTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final IndexCopyPreprocessor processor =
+      new IndexCopyPreprocessor("prefix", "namespace", false);
+
+  private final DocumentBuilder builder;
+
+  public IndexCopyPreprocessorTest() throws ParserConfigurationException {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    builder = factory.newDocumentBuilder();
+    processor.setLogger(new DummyLogger());
+  }
+
+  @Test
+  public void process() throws IOException, SAXException, ParseException, XMLStreamException {
+    test("/index/en.xml", "/src.xml", "/group.xml", Locale.ENGLISH, 8);
+  }
+
+  @Test
+  public void process_child()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    test("/index/child.xml", "/child_src.xml", "/child_exp.xml", Locale.ENGLISH, 3);
+  }
+
+  @Test
+  public void process_Hungarian()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    test("/index/hu.xml", "/hu_src.xml", "/hu_exp.xml", Locale.forLanguageTag("hu"), 3);
+  }
+
+  @Test
+  public void process_copiesMarkup()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    final String topic =
+        "<topic class='- topic/topic ' a=\"x > y\">\r\n"
+            + "  <!-- <indexterm> --><?pi <b>?>"
+            + "<p class=\"- topic/p \">A &amp; B &#x20AC; <![CDATA[<i>]]></p><br/>\n"
+            + "</topic>";
+    final File src = temporaryFolder.newFile("src.xml");
+    Files.write(
+        src.toPath(),
+        ("<?xml version='1.0'?>\n<root>"
+                + topic
+                + "<topic class='- topic/topic '>"
+                + "<indexterm class='- topic/indexterm '>Foo<b>bar</b></indexterm>"
+                + "<p class='- topic/p '>text</p></topic>"
+                + topic
+                + "</root>\n")
+            .getBytes(StandardCharsets.UTF_8));
+    final File dst = temporaryFolder.newFile("dst.xml");
+
+    final Collection<IndexEntry> indexEntries =
+        processor.process(src, dst, getConfiguration("/index/en.xml"), Locale.ENGLISH).indexEntries;
+    assertEquals(1, indexEntries.size());
+
+    final String act = new String(Files.readAllBytes(dst.toPath()), StandardCharsets.UTF_8);
+    assertTrue(act.startsWith("<?xml version='1.0'?>\n<root xmlns:prefix=\"namespace\">" + topic));
+    assertTrue(act.contains("<p class='- topic/p '>text</p></topic>" + topic + "<prefix:"));
+    assertTrue(act.endsWith("</prefix:index.groups></root>\n"));
+    builder.parse(dst);
+  }
+
+  @Test
+  public void process_emptyRoot()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    final File src = temporaryFolder.newFile("src.xml");
+    Files.write(src.toPath(), "<root a='b'/>".getBytes(StandardCharsets.UTF_8));
+    final File dst = temporaryFolder.newFile("dst.xml");
+
+    processor.process(src, dst, getConfiguration("/index/en.xml"), Locale.ENGLISH);
+
+    final String act = new String(Files.readAllBytes(dst.toPath()), StandardCharsets.UTF_8);
+    assertEquals(
+        "<root a='b' xmlns:prefix=\"namespace\"><prefix:index.groups></prefix:index.groups></root>",
+        act.replace("<prefix:index.groups/>", "<prefix:index.groups></prefix:index.groups>"));
+  }
+
+  @Test
+  public void process_declaredNamespace()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    final File src = temporaryFolder.newFile("src.xml");
+    Files.write(
+        src.toPath(),
+        ("<root xmlns:prefix='namespace'>"
+                + "<indexterm class='- topic/indexterm '>Foo</indexterm></root>")
+            .getBytes(StandardCharsets.UTF_8));
+    final File dst = temporaryFolder.newFile("dst.xml");
+
+    processor.process(src, dst, getConfiguration("/index/en.xml"), Locale.ENGLISH);
+
+    final String act = new String(Files.readAllBytes(dst.toPath()), StandardCharsets.UTF_8);
+    assertTrue(act.startsWith("<root xmlns:prefix='namespace'><prefix:"));
+    builder.parse(dst);
+  }
+
+  @Test
+  public void process_doctype()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    final File src = temporaryFolder.newFile("src.xml");
+    Files.write(
+        src.toPath(),
+        "<!DOCTYPE root [<!ENTITY e '<b/>'>]><root>&e;</root>".getBytes(StandardCharsets.UTF_8));
+    final File dst = temporaryFolder.newFile("dst.xml");
+
+    assertNull(processor.process(src, dst, getConfiguration("/index/en.xml"), Locale.ENGLISH));
+    assertEquals(0, dst.length());
+  }
+
+  private IndexConfiguration getConfiguration(final String config)
+      throws IOException, SAXException, ParseException {
+    try (InputStream cnf = getClass().getResourceAsStream(config)) {
+      return IndexConfiguration.parse(builder.parse(cnf));
+    }
+  }
+
+  private void test(
+      final String config,
+      final String source,
+      final String expected,
+      final Locale locale,
+      final int entryCount)
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    try (InputStream src = getClass().getResourceAsStream(source);
+        InputStream exp = getClass().getResourceAsStream(expected)) {
+      final File srcFile = temporaryFolder.newFile("src.xml");
+      Files.copy(src, srcFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      final File dstFile = temporaryFolder.newFile("dst.xml");
+
+      final Collection<IndexEntry> indexEntries =
+          processor.process(srcFile, dstFile, getConfiguration(config), locale).indexEntries;
+      assertEquals(entryCount, indexEntries.size());
+
+      final Document actDoc = builder.parse(dstFile);
+      final Document expDoc = builder.parse(exp);
+      assertThat(
+          actDoc,
+          CompareMatcher.isIdenticalTo(expDoc)
+              .ignoreElementContentWhitespace()
+              .normalizeWhitespace());
+    }
+  }
+}
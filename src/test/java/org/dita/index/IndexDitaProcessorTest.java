@@ -224,13 +224,4 @@ public class IndexDitaProcessorTest {
         "Foo[foo]",
         processor.stripFormatting("Foo<$nopage><$singlepage><$startrange><$endrange>[foo]"));
   }
-
-  @Test
-  public void normalizeTextValue() {
-    assertEquals("foo", processor.normalizeTextValue("foo"));
-    assertEquals("foo bar", processor.normalizeTextValue("  foo \n bar  "));
-    assertEquals("foo\0A0bar", processor.normalizeTextValue("foo\0A0bar"));
-    assertEquals(null, processor.normalizeTextValue(null));
-    assertEquals("", processor.normalizeTextValue(""));
-  }
 }
@@ -3,6 +3,9 @@ package org.dita.index;
 import static java.util.Collections.emptyList;
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -23,6 +26,31 @@ public class IndexEntryImplTest {
     return res;
   }
 
+  @Test
+  public void addRefID() {
+    self.addRefID("foo:");
+    self.addRefID("bar:");
+    self.addRefID(new String("foo:"));
+    self.addRefID("baz:");
+
+    assertEquals(3, self.getRefIDs().size());
+    assertEquals(Arrays.asList("foo:", "bar:", "baz:"), new ArrayList<>(self.getRefIDs()));
+  }
+
+  @Test
+  public void symbols() {
+    final SymbolTable symbols = new SymbolTable();
+    final IndexEntryImpl first = new IndexEntryImpl(symbols, "Foo", null, "Foo", emptyList());
+    final IndexEntryImpl second =
+        new IndexEntryImpl(symbols, new String("Foo"), null, new String("Foo"), emptyList());
+    first.addRefID("Foo:");
+    second.addRefID(new String("Foo:"));
+
+    assertSame(first.getValue(), second.getValue());
+    assertSame(first.getValue(), second.getFormattedString());
+    assertSame(first.getRefIDs().iterator().next(), second.getRefIDs().iterator().next());
+  }
+
   @Test
   public void addChild() {
     self.addChild(createIndexEntry("Bar"));
@@ -48,6 +76,49 @@ public class IndexEntryImplTest {
     assertFalse(self.getChildIndexEntries().get(0).isSuppressesThePageNumber());
   }
 
+  @Test
+  public void addChild_many() {
+    for (int i = 0; i < 20; i++) {
+      self.addChild(createIndexEntry("Child " + i));
+    }
+    for (int i = 0; i < 20; i++) {
+      self.addChild(createIndexEntry("Child " + i, createIndexEntry("Grandchild " + i)));
+    }
+
+    assertEquals(20, self.getChildIndexEntries().size());
+    for (int i = 0; i < 20; i++) {
+      final IndexEntry child = self.getChildIndexEntries().get(i);
+      assertEquals("Child " + i, child.getValue());
+      assertEquals(1, child.getChildIndexEntries().size());
+    }
+    assertNull(self.getSeeChildIndexEntries());
+    assertNull(self.getSeeAlsoChildIndexEntries());
+  }
+
+  @Test
+  public void children() {
+    assertTrue(self.children().isEmpty());
+    assertTrue(self.seeChildren().isEmpty());
+    assertTrue(self.seeAlsoChildren().isEmpty());
+
+    self.addChild(createIndexEntry("Foo"));
+    final List<IndexEntry> children = self.children();
+    self.addChild(createIndexEntry("Bar"));
+    self.addSeeChild(createIndexEntry("Baz"));
+    self.addSeeAlsoChild(createIndexEntry("Qux"));
+
+    assertEquals(2, children.size());
+    assertEquals(self.getChildIndexEntries(), children);
+    assertEquals(self.getSeeChildIndexEntries(), self.seeChildren());
+    assertEquals(self.getSeeAlsoChildIndexEntries(), self.seeAlsoChildren());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void children_readOnly() {
+    self.addChild(createIndexEntry("Foo"));
+    self.children().add(createIndexEntry("Bar"));
+  }
+
   @Test
   public void addSeeChild() {
     self.addSeeChild(createIndexEntry("Bar"));
@@ -160,4 +231,18 @@ public class IndexEntryImplTest {
     assertFalse(self.isSuppressesThePageNumber());
     assertTrue(self.isRestoresPageNumber());
   }
+
+  @Test
+  public void setFlags() {
+    self.setStartRange(true);
+    self.setSuppressesThePageNumber(true);
+    assertTrue(self.isStartingRange());
+    assertFalse(self.isEndingRange());
+    assertTrue(self.isSuppressesThePageNumber());
+    assertFalse(self.isRestoresPageNumber());
+
+    self.setStartRange(false);
+    assertFalse(self.isStartingRange());
+    assertTrue(self.isSuppressesThePageNumber());
+  }
 }
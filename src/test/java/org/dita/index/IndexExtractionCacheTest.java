@@ -0,0 +1,133 @@
+package org.dita.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+import org.xmlunit.matchers.CompareMatcher;
+
+public class IndexExtractionCacheTest {
+
+  private static final String TOPIC =
+      "<topic class='- topic/topic ' id='%s'>"
+          + "<indexterm class='- topic/indexterm '>%s <b class='+ topic/ph hi-d/b '>bold</b>"
+          + "<indexterm class='- topic/indexterm '>Bar</indexterm>"
+          + "</indexterm>"
+          + "<indexterm class='- topic/indexterm ' start='r'>Range</indexterm>"
+          + "<indexterm class='- topic/indexterm '>Foo"
+          + "<index-see class='+ topic/index-base indexing-d/index-see '>Baz</index-see>"
+          + "</indexterm>"
+          + "<p class='- topic/p '>text</p>"
+          + "%s"
+          + "</topic>";
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final DocumentBuilder builder;
+
+  public IndexExtractionCacheTest() throws ParserConfigurationException {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    builder = factory.newDocumentBuilder();
+  }
+
+  @Test
+  public void process() throws IOException, SAXException, TransformerException {
+    final File dir = temporaryFolder.newFolder();
+    final String src = document("Foo", "Qux");
+    final Document exp = process(src, null);
+
+    final Document cold = process(src, dir);
+    assertEquals(3, countFiles(dir));
+    final Document warm = process(src, dir);
+
+    assertThat(cold, CompareMatcher.isIdenticalTo(exp));
+    assertThat(warm, CompareMatcher.isIdenticalTo(exp));
+  }
+
+  @Test
+  public void process_changedTopic() throws IOException, SAXException, TransformerException {
+    final File dir = temporaryFolder.newFolder();
+    process(document("Foo", "Qux"), dir);
+
+    final String src = document("Foo", "Quux");
+    final Document act = process(src, dir);
+
+    assertEquals(4, countFiles(dir));
+    assertThat(act, CompareMatcher.isIdenticalTo(process(src, null)));
+  }
+
+  @Test
+  public void key() throws IOException, SAXException {
+    final String a = key(String.format(TOPIC, "a", "Foo", ""));
+    assertNotNull(a);
+    assertEquals(a, key(String.format(TOPIC, "a", "Foo", "")));
+    assertNotEquals(a, key(String.format(TOPIC, "a", "Bar", "")));
+    assertEquals(
+        key(String.format(TOPIC, "a", "Foo", String.format(TOPIC, "b", "Bar", ""))),
+        key(String.format(TOPIC, "a", "Foo", String.format(TOPIC, "b", "Baz", ""))));
+    assertNull(key("<topic class='- topic/topic '><p class='- topic/p '>text</p></topic>"));
+  }
+
+  private String key(final String topic) throws IOException, SAXException {
+    final Document doc = parse(topic);
+    return IndexExtractionCache.key(doc.getDocumentElement(), false);
+  }
+
+  private static String document(final String first, final String second) {
+    return "<map class='- map/map '>"
+        + String.format(TOPIC, "a", first, "")
+        + String.format(TOPIC, "b", second, String.format(TOPIC, "c", "Nested", ""))
+        + "</map>";
+  }
+
+  private Document process(final String src, final File dir)
+      throws IOException, SAXException, TransformerException {
+    final IndexPreprocessor processor = new IndexPreprocessor("prefix", "namespace", false);
+    processor.setLogger(new DummyLogger());
+    if (dir != null) {
+      processor.setExtractionCache(new IndexExtractionCache(dir));
+    }
+    final IndexPreprocessResult result = processor.process(parse(src));
+    final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    TransformerFactory.newInstance()
+        .newTransformer()
+        .transform(new DOMSource(result.document), new StreamResult(buf));
+    return builder.parse(new ByteArrayInputStream(buf.toByteArray()));
+  }
+
+  private Document parse(final String src) throws IOException, SAXException {
+    try (InputStream in = new ByteArrayInputStream(src.getBytes(StandardCharsets.UTF_8))) {
+      return builder.parse(in);
+    }
+  }
+
+  private static long countFiles(final File dir) throws IOException {
+    try (Stream<Path> files = Files.walk(dir.toPath())) {
+      return files.filter(Files::isRegularFile).count();
+    }
+  }
+}
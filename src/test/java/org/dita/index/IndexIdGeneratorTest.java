@@ -0,0 +1,73 @@
+package org.dita.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class IndexIdGeneratorTest {
+
+  private final SymbolTable symbols = new SymbolTable();
+  private final List<String> warnings = new ArrayList<>();
+  private final DummyLogger logger =
+      new DummyLogger() {
+        @Override
+        public void warn(final String msg) {
+          warnings.add(msg);
+        }
+      };
+
+  @Test
+  public void get_string() {
+    final IndexIdGenerator generator = new IndexIdGenerator();
+    assertEquals("indexid" + "Foo:".hashCode(), generator.get(symbols, "Foo:"));
+  }
+
+  @Test
+  public void get_fingerprint64() {
+    final IndexIdGenerator generator =
+        new IndexIdGenerator(IndexIdGenerator.Hash.FINGERPRINT64, false, logger);
+    assertEquals("indexid2mlq2rfdfk738", generator.get(symbols, "Foo:"));
+    assertEquals("indexid1u5yh53s1mcuf", generator.get(symbols, "Foo:Bar:"));
+    assertNotEquals(generator.get(symbols, "Aa"), generator.get(symbols, "BB"));
+  }
+
+  @Test
+  public void get_cached() {
+    final IndexIdGenerator generator =
+        new IndexIdGenerator(IndexIdGenerator.Hash.FINGERPRINT64, false, logger);
+    assertSame(generator.get(symbols, "Foo:"), generator.get(symbols, new String("Foo:")));
+  }
+
+  @Test
+  public void get_stringNotCached() {
+    final IndexIdGenerator generator = new IndexIdGenerator();
+    final String indexId = generator.get(symbols, "Foo:");
+    assertEquals(indexId, generator.get(symbols, "Foo:"));
+    assertNotSame(indexId, generator.get(symbols, "Foo:"));
+    assertEquals(0, symbols.size());
+  }
+
+  @Test
+  public void get_collision() {
+    final IndexIdGenerator generator =
+        new IndexIdGenerator(IndexIdGenerator.Hash.STRING, true, logger);
+    assertEquals(generator.get(symbols, "Aa"), generator.get(symbols, "BB"));
+    generator.get(symbols, "BB");
+    assertEquals(1, warnings.size());
+    assertTrue(warnings.get(0).contains("INDX004W"));
+  }
+
+  @Test
+  public void get_collisionNotChecked() {
+    final IndexIdGenerator generator =
+        new IndexIdGenerator(IndexIdGenerator.Hash.STRING, false, logger);
+    assertEquals(generator.get(symbols, "Aa"), generator.get(symbols, "BB"));
+    assertTrue(warnings.isEmpty());
+  }
+}
@@ -0,0 +1,79 @@
+package org.dita.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+public class IndexPreprocessorMainTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+  @Test
+  public void run()
+      throws IOException, SAXException, ParserConfigurationException, URISyntaxException {
+    final File output = new File(temporaryFolder.getRoot(), "out/stage1.xml");
+
+    final int status =
+        run(
+            "--input", resource("/src.xml"),
+            "--output", output.getPath(),
+            "--locale", "en-US",
+            "--config", resource("/index/en.xml"));
+
+    assertEquals(0, status);
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    final Document doc = factory.newDocumentBuilder().parse(output);
+    assertEquals(
+        1,
+        doc.getElementsByTagNameNS(IndexPreprocessorTask.NAMESPACE_URL, "index.groups")
+            .getLength());
+    assertEquals(
+        2,
+        doc.getElementsByTagNameNS(IndexPreprocessorTask.NAMESPACE_URL, "index.group")
+            .getLength());
+  }
+
+  @Test
+  public void run_missingArgument() {
+    final int status = run("--input", "src.xml", "--output");
+
+    assertEquals(2, status);
+    assertTrue(err.toString(StandardCharsets.UTF_8).contains("Missing value for --output"));
+  }
+
+  @Test
+  public void run_missingInput() throws URISyntaxException {
+    final int status =
+        run(
+            "--input", new File(temporaryFolder.getRoot(), "missing.xml").getPath(),
+            "--output", new File(temporaryFolder.getRoot(), "out.xml").getPath(),
+            "--locale", "en",
+            "--config", resource("/index/en.xml"));
+
+    assertEquals(1, status);
+  }
+
+  private int run(final String... args) {
+    return IndexPreprocessorMain.run(args, new PrintStream(err, true));
+  }
+
+  private String resource(final String name) throws URISyntaxException {
+    return new File(getClass().getResource(name).toURI()).getPath();
+  }
+}
@@ -0,0 +1,205 @@
+package org.dita.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.FileSet;
+import org.apache.tools.ant.types.Mapper;
+import org.dita.index.configuration.IndexConfiguration;
+import org.dita.index.configuration.IndexConfigurationCache;
+import org.dita.index.configuration.ParseException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+public class IndexPreprocessorTaskTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final Project project = new Project();
+  private final IndexPreprocessorTask task = new IndexPreprocessorTask();
+  private File src;
+  private File config;
+
+  @Before
+  public void setUp() throws IOException {
+    project.init();
+    task.setProject(project);
+    src = resource("/src.xml", "src.xml");
+    config = resource("/index/en.xml", "en.xml");
+  }
+
+  @Test
+  public void execute_jobs() throws IOException, SAXException, ParserConfigurationException {
+    final File out1 = new File(temporaryFolder.getRoot(), "out/1.xml");
+    final File out2 = new File(temporaryFolder.getRoot(), "out/2.xml");
+    task.setLocale("en");
+    task.setIndexConfig(config);
+    task.setThreads(2);
+    createJob(src, out1);
+    createJob(src, out2);
+
+    task.execute();
+
+    assertIndexGroups(out1);
+    assertIndexGroups(out2);
+    assertEquals("2", project.getProperty("ws.runtime.index.preprocess.jobs"));
+    assertEquals("16", project.getProperty("ws.runtime.index.preprocess.entries"));
+    assertNull(project.getProperty("ws.runtime.index.preprocess.fail"));
+  }
+
+  @Test
+  public void execute_jobAttributes()
+      throws IOException, SAXException, ParserConfigurationException {
+    final File out = new File(temporaryFolder.getRoot(), "out.xml");
+    task.setMode("stream");
+    final IndexPreprocessorTask.Job job = createJob(src, out);
+    job.setLocale("en_US");
+    job.setIndexConfig(config);
+
+    task.execute();
+
+    assertIndexGroups(out);
+  }
+
+  @Test
+  public void execute_jobMissingAttributes() {
+    task.setLocale("en");
+    createJob(src, new File(temporaryFolder.getRoot(), "out.xml"));
+
+    try {
+      task.execute();
+      fail();
+    } catch (final BuildException e) {
+      assertEquals("locale, indexConfig, input, output attributes are required", e.getMessage());
+    }
+  }
+
+  @Test
+  public void execute_jobFailure() throws IOException, SAXException, ParserConfigurationException {
+    final File out1 = new File(temporaryFolder.getRoot(), "out/1.xml");
+    final File out2 = new File(temporaryFolder.getRoot(), "out/2.xml");
+    final File out3 = new File(temporaryFolder.getRoot(), "out/3.xml");
+    task.setLocale("en");
+    task.setIndexConfig(config);
+    task.setThreads(3);
+    createJob(src, out1);
+    createJob(new File(temporaryFolder.getRoot(), "missing.xml"), out2);
+    createJob(src, out3);
+
+    try {
+      task.execute();
+      fail();
+    } catch (final BuildException e) {
+      assertEquals("Failed to process 1 of 3 index preprocessing jobs", e.getMessage());
+    }
+
+    assertIndexGroups(out1);
+    assertFalse(out2.exists());
+    assertIndexGroups(out3);
+    assertEquals("2", project.getProperty("ws.runtime.index.preprocess.jobs"));
+  }
+
+  @Test
+  public void execute_fileset() throws IOException, SAXException, ParserConfigurationException {
+    final File dir = temporaryFolder.newFolder("src");
+    Files.copy(src.toPath(), new File(dir, "a.xml").toPath());
+    Files.copy(src.toPath(), new File(dir, "b.xml").toPath());
+    Files.copy(src.toPath(), new File(dir, "c.txt").toPath());
+    final File destDir = new File(temporaryFolder.getRoot(), "dest");
+    task.setLocale("en");
+    task.setIndexConfig(config);
+    task.setDestDir(destDir);
+    task.setThreads(2);
+    final FileSet fileset = new FileSet();
+    fileset.setProject(project);
+    fileset.setDir(dir);
+    fileset.setIncludes("*.xml");
+    task.addFileset(fileset);
+    final Mapper mapper = task.createMapper();
+    final Mapper.MapperType type = new Mapper.MapperType();
+    type.setValue("glob");
+    mapper.setType(type);
+    mapper.setFrom("*.xml");
+    mapper.setTo("*.index.xml");
+
+    task.execute();
+
+    assertIndexGroups(new File(destDir, "a.index.xml"));
+    assertIndexGroups(new File(destDir, "b.index.xml"));
+    assertEquals(2, destDir.list().length);
+  }
+
+  @Test
+  public void execute_filesetWithoutDestDir() throws IOException {
+    task.setLocale("en");
+    task.setIndexConfig(config);
+    final FileSet fileset = new FileSet();
+    fileset.setProject(project);
+    fileset.setDir(temporaryFolder.newFolder("src"));
+    task.addFileset(fileset);
+
+    try {
+      task.execute();
+      fail();
+    } catch (final BuildException e) {
+      assertEquals("destDir attribute is required with nested filesets", e.getMessage());
+    }
+  }
+
+  @Test
+  public void execute_sharedConfiguration() throws IOException, SAXException, ParseException {
+    final IndexConfiguration configuration = IndexConfigurationCache.getInstance().get(config);
+    task.setLocale("en");
+    task.setIndexConfig(config);
+    task.setThreads(2);
+    createJob(src, new File(temporaryFolder.getRoot(), "out/1.xml"));
+    createJob(src, new File(temporaryFolder.getRoot(), "out/2.xml"));
+
+    task.execute();
+
+    assertSame(configuration, IndexConfigurationCache.getInstance().get(config));
+  }
+
+  private IndexPreprocessorTask.Job createJob(final File input, final File output) {
+    final IndexPreprocessorTask.Job job = task.createJob();
+    job.setInput(input);
+    job.setOutput(output);
+    return job;
+  }
+
+  private File resource(final String name, final String fileName) throws IOException {
+    final File file = new File(temporaryFolder.getRoot(), fileName);
+    try (InputStream in = getClass().getResourceAsStream(name)) {
+      Files.copy(in, file.toPath());
+    }
+    return file;
+  }
+
+  private static void assertIndexGroups(final File file)
+      throws IOException, SAXException, ParserConfigurationException {
+    assertTrue(file.exists());
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    final Document doc = factory.newDocumentBuilder().parse(file);
+    assertEquals(
+        1,
+        doc.getElementsByTagNameNS(IndexPreprocessorTask.NAMESPACE_URL, "index.groups")
+            .getLength());
+  }
+}
@@ -1,17 +1,29 @@
 package org.dita.index;
 
+import static javax.xml.XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -21,6 +33,8 @@ import org.dita.index.configuration.IndexConfiguration;
 import org.dita.index.configuration.ParseException;
 import org.junit.Test;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 import org.xmlunit.matchers.CompareMatcher;
 
@@ -58,6 +72,142 @@ public class IndexPreprocessorTest {
     }
   }
 
+  @Test
+  public void process_detached() throws IOException, SAXException {
+    try (InputStream src = getClass().getResourceAsStream("/src.xml")) {
+      final Document srcDoc = builder.parse(src);
+      final IndexPreprocessResult result = processor.process(srcDoc);
+
+      for (final IndexEntry indexEntry : result.indexEntries) {
+        assertDetached(indexEntry, srcDoc);
+      }
+    }
+  }
+
+  private static void assertDetached(final IndexEntry indexEntry, final Document srcDoc) {
+    for (final Node content : indexEntry.getContents()) {
+      assertNotSame(srcDoc, content.getOwnerDocument());
+      assertNull(content.getParentNode());
+    }
+    for (final IndexEntry child : indexEntry.getChildIndexEntries()) {
+      assertDetached(child, srcDoc);
+    }
+  }
+
+  @Test
+  public void process_doctype() {
+    final Document srcDoc =
+        builder
+            .getDOMImplementation()
+            .createDocument(
+                null,
+                "topic",
+                builder.getDOMImplementation().createDocumentType("topic", "-//TEST//EN", "t.dtd"));
+
+    final Document doc = processor.process(srcDoc).document;
+    assertEquals("-//TEST//EN", doc.getDoctype().getPublicId());
+    assertEquals("t.dtd", doc.getDoctype().getSystemId());
+    assertEquals("topic", doc.getDocumentElement().getTagName());
+  }
+
+  @Test
+  public void process_parallel()
+      throws IOException, SAXException, ParseException, ParserConfigurationException,
+          TransformerException, XMLStreamException {
+    final Document srcDoc =
+        new CorpusGenerator()
+            .locales("en", "ru")
+            .topics(50)
+            .terms(2000)
+            .depth(3)
+            .see(0.1, 0.1)
+            .ranges(10)
+            .vocabulary(500)
+            .document();
+    final IndexConfiguration configuration = CorpusGenerator.configuration("en");
+    processor.setLogger(new DummyLogger());
+    final IndexPreprocessResult exp = processor.process(srcDoc);
+    processor.createAndAddIndexGroups(
+        exp.indexEntries, configuration, exp.document, Locale.ENGLISH);
+
+    final IndexPreprocessor parallelProcessor =
+        new IndexPreprocessor("prefix", "namespace", false);
+    parallelProcessor.setLogger(new DummyLogger());
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      parallelProcessor.setExtractionPool(pool);
+      final IndexPreprocessResult act = parallelProcessor.process(srcDoc);
+      parallelProcessor.createAndAddIndexGroups(
+          act.indexEntries, configuration, act.document, Locale.ENGLISH);
+
+      assertEquals(values(exp.indexEntries), values(act.indexEntries));
+      assertEquals(serialize(exp.document), serialize(act.document));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static List<String> values(final Collection<IndexEntry> indexEntries) {
+    final List<String> values = new ArrayList<>();
+    for (final IndexEntry indexEntry : indexEntries) {
+      values.add(indexEntry.getValue() + indexEntry.getRefIDs());
+    }
+    return values;
+  }
+
+  private static String serialize(final Document doc) throws TransformerException {
+    final StringWriter buf = new StringWriter();
+    TransformerFactory.newInstance()
+        .newTransformer()
+        .transform(new DOMSource(doc), new StreamResult(buf));
+    return buf.toString();
+  }
+
+  @Test
+  public void process_draft() {
+    final Document srcDoc = builder.newDocument();
+    final Element topic = element(srcDoc, srcDoc, "topic", "- topic/topic ");
+    final Element draft = element(srcDoc, topic, "draft-comment", "- topic/draft-comment ");
+    element(srcDoc, draft, "indexterm", "- topic/indexterm ").setTextContent("draft");
+    element(srcDoc, topic, "indexterm", "- topic/indexterm ").setTextContent("final");
+
+    final IndexPreprocessResult result = processor.process(srcDoc);
+    assertEquals(1, result.indexEntries.size());
+    assertEquals("final", result.indexEntries.iterator().next().getValue());
+
+    final IndexPreprocessor draftProcessor = new IndexPreprocessor("prefix", "namespace", true);
+    assertEquals(2, draftProcessor.process(srcDoc).indexEntries.size());
+  }
+
+  @Test
+  public void process_deep() {
+    final int depth = 10_000;
+    final Document srcDoc = builder.newDocument();
+    Node parent = element(srcDoc, srcDoc, "topic", "- topic/topic ");
+    for (int i = 0; i < depth; i++) {
+      parent = element(srcDoc, parent, "ph", "- topic/ph ");
+    }
+    element(srcDoc, parent, "indexterm", "- topic/indexterm ").setTextContent("deep");
+    parent.appendChild(srcDoc.createTextNode("text"));
+
+    final IndexPreprocessResult result = processor.process(srcDoc);
+    assertEquals(1, result.indexEntries.size());
+    Node node = result.document.getDocumentElement();
+    for (int i = 0; i < depth; i++) {
+      node = node.getFirstChild();
+    }
+    assertEquals("namespace", node.getFirstChild().getNamespaceURI());
+    assertEquals("text", node.getLastChild().getNodeValue());
+  }
+
+  private static Element element(
+      final Document doc, final Node parent, final String name, final String cls) {
+    final Element element = doc.createElement(name);
+    element.setAttribute("class", cls);
+    parent.appendChild(element);
+    return element;
+  }
+
   @Test
   public void createAndAddIndexGroups()
       throws IOException, SAXException, ParseException, TransformerException {
@@ -144,4 +294,82 @@ public class IndexPreprocessorTest {
               .normalizeWhitespace());
     }
   }
+
+  @Test
+  public void createAndAddIndexGroups_uncategorized()
+      throws IOException, SAXException, ParseException {
+    try (InputStream cnf = getClass().getResourceAsStream("/index/range.xml");
+        InputStream src = getClass().getResourceAsStream("/src.xml")) {
+      final IndexConfiguration configuration = IndexConfiguration.parse(builder.parse(cnf));
+      processor.setLogger(new DummyLogger());
+      final IndexPreprocessResult result = processor.process(builder.parse(src));
+
+      final Collection<IndexEntry> uncategorized =
+          processor.createAndAddIndexGroups(
+              result.indexEntries, configuration, result.document, Locale.ENGLISH);
+
+      assertFalse(uncategorized.isEmpty());
+    }
+  }
+
+  @Test
+  public void parseLocale() {
+    assertEquals(new Locale("en"), IndexPreprocessor.parseLocale("en"));
+    assertEquals(new Locale("en", "US"), IndexPreprocessor.parseLocale("en-US"));
+    assertEquals(new Locale("pt", "BR"), IndexPreprocessor.parseLocale("pt_BR"));
+  }
+
+  @Test
+  public void writeIndexGroups()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    try (InputStream src = getClass().getResourceAsStream("/src.xml")) {
+      assertWriteIndexGroups(builder.parse(src));
+    }
+  }
+
+  @Test
+  public void writeIndexGroups_generated()
+      throws IOException, SAXException, ParseException, ParserConfigurationException,
+          XMLStreamException {
+    assertWriteIndexGroups(
+        new CorpusGenerator()
+            .locales("en", "ru")
+            .topics(50)
+            .terms(2000)
+            .depth(3)
+            .see(0.1, 0.1)
+            .ranges(10)
+            .vocabulary(500)
+            .document());
+  }
+
+  private void assertWriteIndexGroups(final Document doc)
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    try (InputStream cnf = getClass().getResourceAsStream("/index/en.xml")) {
+      final IndexConfiguration configuration = IndexConfiguration.parse(builder.parse(cnf));
+      processor.setLogger(new DummyLogger());
+      final IndexPreprocessResult result = processor.process(doc);
+      final List<IndexGroup> groups =
+          processor.groupIndexEntries(result.indexEntries, configuration, Locale.ENGLISH)
+              .indexGroups;
+
+      final StringWriter exp = new StringWriter();
+      final XMLStreamWriter expWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(exp);
+      XMLStreamUtils.writeNode(
+          processor.createIndexGroups(groups, result.document, Locale.ENGLISH), expWriter);
+      expWriter.flush();
+      final StringWriter act = new StringWriter();
+      final XMLStreamWriter actWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(act);
+      processor.writeIndexGroups(groups, Locale.ENGLISH, actWriter);
+      actWriter.flush();
+
+      assertEquals(exp.toString(), act.toString());
+      final Element actGroups =
+          builder
+              .parse(new ByteArrayInputStream(act.toString().getBytes(StandardCharsets.UTF_8)))
+              .getDocumentElement();
+      assertEquals("namespace", actGroups.getNamespaceURI());
+      assertEquals("namespace", actGroups.getAttributeNS(XMLNS_ATTRIBUTE_NS_URI, "prefix"));
+    }
+  }
 }
@@ -0,0 +1,103 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Locale;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.stream.StreamSource;
+import net.sf.saxon.om.TreeModel;
+import net.sf.saxon.s9api.DocumentBuilder;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.Serializer;
+import net.sf.saxon.s9api.XdmNode;
+import org.dita.index.configuration.IndexConfiguration;
+import org.dita.index.configuration.ParseException;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+import org.xmlunit.matchers.CompareMatcher;
+
+public class IndexSaxonPreprocessorTest {
+
+  private final Processor saxon = new Processor(false);
+  private final IndexSaxonPreprocessor processor =
+      new IndexSaxonPreprocessor(saxon, "prefix", "namespace", false);
+
+  private final javax.xml.parsers.DocumentBuilder builder;
+
+  public IndexSaxonPreprocessorTest() throws ParserConfigurationException {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    builder = factory.newDocumentBuilder();
+    processor.setLogger(new DummyLogger());
+  }
+
+  @Test
+  public void process()
+      throws IOException, SAXException, ParseException, XMLStreamException, SaxonApiException {
+    test("/index/en.xml", "/src.xml", "/group.xml", Locale.ENGLISH, 8);
+  }
+
+  @Test
+  public void process_child()
+      throws IOException, SAXException, ParseException, XMLStreamException, SaxonApiException {
+    test("/index/child.xml", "/child_src.xml", "/child_exp.xml", Locale.ENGLISH, 3);
+  }
+
+  @Test
+  public void process_Hungarian()
+      throws IOException, SAXException, ParseException, XMLStreamException, SaxonApiException {
+    test("/index/hu.xml", "/hu_src.xml", "/hu_exp.xml", Locale.forLanguageTag("hu"), 3);
+  }
+
+  private void test(
+      final String config,
+      final String source,
+      final String expected,
+      final Locale locale,
+      final int entryCount)
+      throws IOException, SAXException, ParseException, XMLStreamException, SaxonApiException {
+    try (InputStream cnf = getClass().getResourceAsStream(config);
+        InputStream src = getClass().getResourceAsStream(source);
+        InputStream exp = getClass().getResourceAsStream(expected)) {
+      final IndexConfiguration configuration = IndexConfiguration.parse(builder.parse(cnf));
+      final DocumentBuilder documentBuilder = saxon.newDocumentBuilder();
+      documentBuilder.setTreeModel(TreeModel.TINY_TREE);
+      final XdmNode srcDoc = documentBuilder.build(new StreamSource(src));
+      final ByteArrayOutputStream actString = new ByteArrayOutputStream();
+      final Serializer serializer = saxon.newSerializer(actString);
+      final XMLStreamWriter writer = serializer.getXMLStreamWriter();
+
+      final Collection<IndexEntry> indexEntries =
+          processor.process(srcDoc, writer, configuration, locale).indexEntries;
+      writer.close();
+      assertEquals(entryCount, indexEntries.size());
+
+      final Document actDoc = builder.parse(new ByteArrayInputStream(actString.toByteArray()));
+      final Document expDoc = builder.parse(exp);
+      assertThat(
+          actDoc,
+          CompareMatcher.isIdenticalTo(expDoc)
+              .ignoreElementContentWhitespace()
+              .normalizeWhitespace());
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package org.dita.index;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+public class IndexSpillTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final SymbolTable symbols = new SymbolTable();
+
+  private IndexEntry entry(final String value, final String sortString, final String refID) {
+    final IndexEntry res = new IndexEntryImpl(symbols, value, sortString, value, null);
+    res.addRefID(refID);
+    return res;
+  }
+
+  private static List<IndexEntry> toList(final Iterable<IndexEntry> entries) {
+    final List<IndexEntry> res = new ArrayList<>();
+    entries.forEach(res::add);
+    return res;
+  }
+
+  private static List<String> values(final Collection<IndexEntry> entries) {
+    final List<String> res = new ArrayList<>();
+    for (final IndexEntry entry : entries) {
+      res.add(entry.getValue());
+    }
+    return res;
+  }
+
+  @Test
+  public void merge_inMemory() throws IOException {
+    try (IndexSpill spill = new IndexSpill(temporaryFolder.getRoot(), 10, Locale.ROOT)) {
+      final IndexEntry foo = entry("foo", null, "1");
+      spill.add(foo);
+      spill.add(entry("bar", null, "2"));
+      spill.add(entry("foo", null, "3"));
+
+      assertEquals(0, spill.getRuns());
+      assertEquals(3, spill.size());
+      final List<IndexEntry> summaries = new ArrayList<>(spill.getEntries());
+      assertEquals(Arrays.asList("foo", "bar"), values(summaries));
+      final List<Iterable<IndexEntry>> merged =
+          spill.merge(singletonList(Arrays.asList(summaries.get(1), summaries.get(0))));
+      final List<IndexEntry> act = toList(merged.get(0));
+      assertEquals(Arrays.asList("bar", "foo"), values(act));
+      assertSame(foo, act.get(1));
+      assertEquals(Arrays.asList("1", "3"), new ArrayList<>(foo.getRefIDs()));
+    }
+    assertEquals(0, temporaryFolder.getRoot().list().length);
+  }
+
+  @Test
+  public void merge_runs() throws IOException {
+    try (IndexSpill spill = new IndexSpill(temporaryFolder.getRoot(), 2, Locale.ROOT)) {
+      final IndexEntry first = entry("foo", "a", "1");
+      first.addChild(entry("child", null, "1"));
+      spill.add(first);
+      spill.add(entry("bar", null, "2"));
+      final IndexEntry second = entry("foo", "z", "3");
+      second.setSuppressesThePageNumber(true);
+      final IndexEntry secondChild = entry("child", "sort", "3");
+      second.addChild(secondChild);
+      second.addChild(entry("other", null, "3"));
+      spill.add(second);
+      spill.add(entry("baz", null, "4"));
+      spill.add(entry("foo", null, "1"));
+
+      assertEquals(2, spill.getRuns());
+      final List<IndexEntry> summaries = new ArrayList<>(spill.getEntries());
+      assertEquals(Arrays.asList("foo", "bar", "baz"), values(summaries));
+      assertEquals("a", summaries.get(0).getSortString());
+      assertFalse(summaries.get(0).isSuppressesThePageNumber());
+      final List<Iterable<IndexEntry>> merged =
+          spill.merge(
+              Arrays.asList(
+                  Arrays.asList(summaries.get(2), summaries.get(0)),
+                  singletonList(summaries.get(1))));
+
+      final List<IndexEntry> group1 = toList(merged.get(0));
+      assertEquals(Arrays.asList("baz", "foo"), values(group1));
+      final IndexEntry foo = group1.get(1);
+      assertEquals("a", foo.getSortString());
+      assertFalse(foo.isSuppressesThePageNumber());
+      assertEquals(Arrays.asList("1", "3"), new ArrayList<>(foo.getRefIDs()));
+      assertEquals(Arrays.asList("child", "other"), values(foo.children()));
+      assertEquals("sort", foo.children().get(0).getSortString());
+      assertEquals(Arrays.asList("1", "3"), new ArrayList<>(foo.children().get(0).getRefIDs()));
+      assertEquals(Arrays.asList("bar"), values(toList(merged.get(1))));
+    }
+    assertEquals(0, temporaryFolder.getRoot().list().length);
+  }
+
+  @Test
+  public void getSymbols() throws IOException {
+    try (IndexSpill spill = new IndexSpill(temporaryFolder.getRoot(), 2, Locale.ROOT)) {
+      final SymbolTable first = spill.getSymbols();
+      spill.add(new IndexEntryImpl(first, "foo", null, "foo", null));
+      assertSame(first, spill.getSymbols());
+      spill.add(new IndexEntryImpl(first, "bar", null, "bar", null));
+
+      assertEquals(1, spill.getRuns());
+      assertNotSame(first, spill.getSymbols());
+      assertEquals(0, spill.getSymbols().size());
+      assertEquals(Arrays.asList("foo", "bar"), values(spill.getEntries()));
+    }
+  }
+
+  @Test
+  public void merge_equalKeys() throws IOException {
+    try (IndexSpill spill = new IndexSpill(temporaryFolder.getRoot(), 1, Locale.ROOT)) {
+      spill.add(entry("foo", "key", "1"));
+      spill.add(entry("bar", "key", "2"));
+      spill.add(entry("baz", "key", "3"));
+
+      final List<IndexEntry> summaries = new ArrayList<>(spill.getEntries());
+      final List<IndexEntry> order =
+          Arrays.asList(summaries.get(2), summaries.get(0), summaries.get(1));
+      final List<Iterable<IndexEntry>> merged = spill.merge(singletonList(order));
+
+      assertEquals(Arrays.asList("baz", "foo", "bar"), values(toList(merged.get(0))));
+    }
+  }
+
+  @Test
+  public void merge_contents() throws IOException {
+    final Document doc = IndexPreprocessor.newDocument();
+    final Element b = doc.createElementNS("urn:x", "x:b");
+    b.setAttributeNS(null, "class", "+ topic/ph hi-d/b ");
+    b.appendChild(doc.createTextNode("bold"));
+    b.appendChild(doc.createComment("comment"));
+    b.appendChild(doc.createProcessingInstruction("pi", "data"));
+    final List<Node> contents = new ArrayList<>(Arrays.asList(doc.createTextNode("foo "), b));
+    final IndexEntry entry = new IndexEntryImpl(symbols, "foo bold", null, "foo bold", contents);
+    final File dir = temporaryFolder.newFolder();
+    try (IndexSpill spill = new IndexSpill(dir, 1, Locale.ROOT)) {
+      spill.add(entry);
+      spill.add(new IndexEntryImpl(symbols, "bar", null, null, null));
+
+      final List<IndexEntry> summaries = new ArrayList<>(spill.getEntries());
+      final List<IndexEntry> act = toList(spill.merge(singletonList(summaries)).get(0));
+
+      final List<Node> actContents = act.get(0).getContents();
+      assertEquals(2, actContents.size());
+      assertEquals("foo ", actContents.get(0).getNodeValue());
+      final Element actB = (Element) actContents.get(1);
+      assertEquals("urn:x", actB.getNamespaceURI());
+      assertEquals("x:b", actB.getNodeName());
+      assertEquals("+ topic/ph hi-d/b ", actB.getAttribute("class"));
+      assertEquals(3, actB.getChildNodes().getLength());
+      assertEquals("data", actB.getLastChild().getNodeValue());
+      assertNull(act.get(1).getContents());
+      assertNull(act.get(1).getFormattedString());
+    }
+    assertEquals(0, dir.list().length);
+  }
+}
@@ -0,0 +1,85 @@
+package org.dita.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.dita.index.IndexStatistics.Phase;
+import org.dita.index.configuration.IndexConfiguration;
+import org.dita.index.configuration.ParseException;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+public class IndexStatisticsTest {
+
+  private final DocumentBuilder builder;
+
+  public IndexStatisticsTest() throws ParserConfigurationException {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    builder = factory.newDocumentBuilder();
+  }
+
+  @Test
+  public void process() throws IOException, SAXException, ParseException {
+    final IndexStatistics statistics = new IndexStatistics();
+    final IndexPreprocessor processor = new IndexPreprocessor("prefix", "namespace", false);
+    processor.setLogger(new DummyLogger());
+    processor.setStatistics(statistics);
+    try (InputStream cnf = getClass().getResourceAsStream("/index/en.xml");
+        InputStream src = getClass().getResourceAsStream("/src.xml")) {
+      final IndexConfiguration configuration = IndexConfiguration.parse(builder.parse(cnf));
+      final IndexPreprocessResult result = processor.process(builder.parse(src));
+      processor.createAndAddIndexGroups(
+          result.indexEntries, configuration, result.document, Locale.ENGLISH);
+    }
+
+    assertEquals(8, statistics.getEntries());
+    assertEquals(2, statistics.getGroups());
+    assertEquals(2, statistics.getDepth());
+    assertTrue(statistics.getComparisons() > 0);
+  }
+
+  @Test
+  public void start_nested() throws InterruptedException {
+    final IndexStatistics statistics = new IndexStatistics();
+    statistics.start(Phase.GROUP);
+    statistics.start(Phase.SORT);
+    Thread.sleep(20);
+    statistics.stop(Phase.SORT);
+    statistics.stop(Phase.GROUP);
+
+    assertTrue(statistics.getTime(Phase.SORT) >= 20);
+    assertTrue(statistics.getTime(Phase.GROUP) < statistics.getTime(Phase.SORT));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void stop_notRunning() {
+    final IndexStatistics statistics = new IndexStatistics();
+    statistics.start(Phase.GROUP);
+    statistics.stop(Phase.SORT);
+  }
+
+  @Test
+  public void merge() {
+    final IndexStatistics first = new IndexStatistics();
+    first.addEntries(2);
+    first.updateDepth(3);
+    final IndexStatistics second = new IndexStatistics();
+    second.addEntries(5);
+    second.updateDepth(1);
+
+    first.merge(second);
+
+    assertEquals(7, first.getEntries());
+    assertEquals(3, first.getDepth());
+    assertEquals(2, first.getJobs());
+    assertEquals(Long.valueOf(7), first.toMap().get("entries"));
+    assertTrue(first.toJson().contains("\"entries\": 7"));
+  }
+}
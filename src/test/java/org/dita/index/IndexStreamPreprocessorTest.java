@@ -0,0 +1,215 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2026 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.index;
+
+import static javax.xml.XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Locale;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.dita.index.configuration.IndexConfiguration;
+import org.dita.index.configuration.ParseException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+import org.xmlunit.matchers.CompareMatcher;
+
+public class IndexStreamPreprocessorTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final IndexStreamPreprocessor processor =
+      new IndexStreamPreprocessor("prefix", "namespace", false);
+
+  private final DocumentBuilder builder;
+
+  public IndexStreamPreprocessorTest() throws ParserConfigurationException {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    builder = factory.newDocumentBuilder();
+    processor.setLogger(new DummyLogger());
+  }
+
+  @Test
+  public void process() throws IOException, SAXException, ParseException, XMLStreamException {
+    test("/index/en.xml", "/src.xml", "/group.xml", Locale.ENGLISH, 8);
+  }
+
+  @Test
+  public void process_child()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    test("/index/child.xml", "/child_src.xml", "/child_exp.xml", Locale.ENGLISH, 3);
+  }
+
+  @Test
+  public void process_Hungarian()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    test("/index/hu.xml", "/hu_src.xml", "/hu_exp.xml", Locale.forLanguageTag("hu"), 3);
+  }
+
+  @Test
+  public void process_spill()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    processor.setSpillThreshold(1);
+    processor.setSpillDir(temporaryFolder.getRoot());
+    test("/index/en.xml", "/src.xml", "/group.xml", Locale.ENGLISH, 0);
+    assertEquals(0, temporaryFolder.getRoot().list().length);
+  }
+
+  @Test
+  public void process_spill_child()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    processor.setSpillThreshold(2);
+    processor.setSpillDir(temporaryFolder.getRoot());
+    test("/index/child.xml", "/child_src.xml", "/child_exp.xml", Locale.ENGLISH, 0);
+    assertEquals(0, temporaryFolder.getRoot().list().length);
+  }
+
+  @Test
+  public void process_indexGroupsWriter()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    try (InputStream cnf = getClass().getResourceAsStream("/index/en.xml");
+        InputStream src = getClass().getResourceAsStream("/src.xml");
+        InputStream exp = getClass().getResourceAsStream("/group.xml")) {
+      final IndexConfiguration configuration = IndexConfiguration.parse(builder.parse(cnf));
+      final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(src);
+      final StringWriter actString = new StringWriter();
+      final XMLStreamWriter writer =
+          XMLOutputFactory.newInstance().createXMLStreamWriter(actString);
+      final StringWriter groupsString = new StringWriter();
+      final XMLStreamWriter groupsWriter =
+          XMLOutputFactory.newInstance().createXMLStreamWriter(groupsString);
+      processor.setIndexGroupsWriter(groupsWriter);
+
+      processor.process(reader, writer, configuration, Locale.ENGLISH);
+      groupsWriter.flush();
+
+      final Document actDoc = parse(actString.toString());
+      assertEquals(0, actDoc.getElementsByTagNameNS("namespace", "index.groups").getLength());
+      final Document groupsDoc = parse(groupsString.toString());
+      final Element expGroups =
+          (Element) builder.parse(exp).getElementsByTagNameNS("namespace", "index.groups").item(0);
+      assertThat(
+          groupsDoc.getDocumentElement(),
+          CompareMatcher.isIdenticalTo(expGroups)
+              .ignoreElementContentWhitespace()
+              .normalizeWhitespace());
+    }
+  }
+
+  @Test
+  public void process_namespaces()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    final String src =
+        "<root><indexterm class='- topic/indexterm '>Foo "
+            + "<m:math xmlns:m='urn:math' class='+ topic/foreign '>x</m:math>"
+            + "</indexterm></root>";
+    try (InputStream cnf = getClass().getResourceAsStream("/index/en.xml")) {
+      final IndexConfiguration configuration = IndexConfiguration.parse(builder.parse(cnf));
+      final XMLStreamReader reader =
+          XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(src));
+      final StringWriter actString = new StringWriter();
+      final XMLStreamWriter writer =
+          XMLOutputFactory.newInstance().createXMLStreamWriter(actString);
+
+      processor.process(reader, writer, configuration, Locale.ENGLISH);
+
+      final Document actDoc = parse(actString.toString());
+      final Element root = actDoc.getDocumentElement();
+      assertEquals("namespace", root.getAttributeNS(XMLNS_ATTRIBUTE_NS_URI, "prefix"));
+      final NodeList maths = actDoc.getElementsByTagNameNS("urn:math", "math");
+      assertEquals(2, maths.getLength());
+      for (int i = 0; i < maths.getLength(); i++) {
+        final Element math = (Element) maths.item(i);
+        assertEquals("urn:math", math.getAttributeNS(XMLNS_ATTRIBUTE_NS_URI, "m"));
+      }
+    }
+  }
+
+  @Test
+  public void process_declaredNamespace()
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    final String src =
+        "<root xmlns:prefix='namespace'><indexterm class='- topic/indexterm '>Foo</indexterm>"
+            + "</root>";
+    try (InputStream cnf = getClass().getResourceAsStream("/index/en.xml")) {
+      final IndexConfiguration configuration = IndexConfiguration.parse(builder.parse(cnf));
+      final XMLStreamReader reader =
+          XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(src));
+      final StringWriter actString = new StringWriter();
+      final XMLStreamWriter writer =
+          XMLOutputFactory.newInstance().createXMLStreamWriter(actString);
+
+      processor.process(reader, writer, configuration, Locale.ENGLISH);
+
+      final String act = actString.toString();
+      assertEquals(act.indexOf("xmlns:prefix="), act.lastIndexOf("xmlns:prefix="));
+      final Document actDoc = parse(act);
+      assertEquals(
+          "namespace",
+          actDoc.getDocumentElement().getAttributeNS(XMLNS_ATTRIBUTE_NS_URI, "prefix"));
+      assertEquals(1, actDoc.getElementsByTagNameNS("namespace", "index.groups").getLength());
+    }
+  }
+
+  private Document parse(final String xml) throws IOException, SAXException {
+    return builder.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private void test(
+      final String config,
+      final String source,
+      final String expected,
+      final Locale locale,
+      final int entryCount)
+      throws IOException, SAXException, ParseException, XMLStreamException {
+    try (InputStream cnf = getClass().getResourceAsStream(config);
+        InputStream src = getClass().getResourceAsStream(source);
+        InputStream exp = getClass().getResourceAsStream(expected)) {
+      final IndexConfiguration configuration = IndexConfiguration.parse(builder.parse(cnf));
+      final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(src);
+      final StringWriter actString = new StringWriter();
+      final XMLStreamWriter writer =
+          XMLOutputFactory.newInstance().createXMLStreamWriter(actString);
+
+      final Collection<IndexEntry> indexEntries =
+          processor.process(reader, writer, configuration, locale).indexEntries;
+      assertEquals(entryCount, indexEntries.size());
+
+      final Document actDoc =
+          builder.parse(
+              new ByteArrayInputStream(actString.toString().getBytes(StandardCharsets.UTF_8)));
+      final Document expDoc = builder.parse(exp);
+      assertThat(
+          actDoc,
+          CompareMatcher.isIdenticalTo(expDoc)
+              .ignoreElementContentWhitespace()
+              .normalizeWhitespace());
+    }
+  }
+}
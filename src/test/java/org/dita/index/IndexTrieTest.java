@@ -0,0 +1,86 @@
+package org.dita.index;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.Test;
+
+public class IndexTrieTest {
+
+  private final IndexTrie trie = new IndexTrie();
+
+  private static IndexEntry entry(final String value, final String refID) {
+    final IndexEntry res = new IndexEntryImpl(value, null, value, emptyList());
+    res.addRefID(refID);
+    return res;
+  }
+
+  @Test
+  public void insert() {
+    final IndexEntry first = entry("Foo", "Foo:");
+    trie.insert(first);
+    trie.insert(entry("Bar", "Bar:"));
+    trie.insert(entry("Foo", "Foo:"));
+
+    assertEquals(2, trie.getRoots().size());
+    assertSame(first, trie.getRoots().get("Foo"));
+    assertEquals(1, first.getRefIDs().size());
+  }
+
+  @Test
+  public void insert_path() {
+    final IndexEntry first = entry("Foo", "Foo:");
+    final IndexEntry firstChild = entry("Bar", "start");
+    first.addChild(firstChild);
+    trie.insert(first);
+    final IndexEntry second = entry("Foo", "Foo:");
+    final IndexEntry secondChild = entry("Bar", "end");
+    secondChild.addSeeChild(entry("Baz", "Baz:"));
+    second.addChild(secondChild);
+    second.addChild(entry("Qux", "Foo:Qux:"));
+    trie.insert(second);
+
+    final IndexEntry foo = trie.getRoots().get("Foo");
+    assertEquals(2, foo.children().size());
+    final IndexEntry bar = foo.children().get(0);
+    assertSame(firstChild, bar);
+    assertEquals(new HashSet<>(Arrays.asList("start", "end")), bar.getRefIDs());
+    assertEquals(1, bar.seeChildren().size());
+    assertEquals("Qux", foo.children().get(1).getValue());
+  }
+
+  @Test
+  public void insert_flags() {
+    final IndexEntry first = entry("Foo", "Foo:");
+    first.setSuppressesThePageNumber(true);
+    trie.insert(first);
+    final IndexEntry second = entry("Foo", "Foo:");
+    second.setStartRange(true);
+    trie.insert(second);
+
+    assertFalse(first.isSuppressesThePageNumber());
+    assertTrue(first.isStartingRange());
+  }
+
+  @Test
+  public void insert_sortString() {
+    final IndexEntry first = entry("Foo", "Foo:");
+    first.setSortString("a");
+    first.addChild(entry("Bar", "Foo:Bar:"));
+    first.children().get(0).setSortString("a");
+    trie.insert(first);
+    final IndexEntry second = entry("Foo", "Foo:");
+    second.setSortString("b");
+    second.addChild(entry("Bar", "Foo:Bar:"));
+    second.children().get(0).setSortString("b");
+    trie.insert(second);
+
+    assertEquals("a", first.getSortString());
+    assertEquals("b", first.children().get(0).getSortString());
+  }
+}
@@ -0,0 +1,87 @@
+package org.dita.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class SymbolTableTest {
+
+  private final SymbolTable symbols = new SymbolTable();
+
+  @Test
+  public void id() {
+    assertEquals(0, symbols.id("foo"));
+    assertEquals(1, symbols.id("bar"));
+    assertEquals(0, symbols.id(new String("foo")));
+    assertEquals(2, symbols.size());
+    assertEquals("foo", symbols.get(0));
+    assertEquals("bar", symbols.get(1));
+  }
+
+  @Test
+  public void id_grow() {
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, symbols.id("foo" + i));
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("foo" + i, symbols.get(i));
+    }
+  }
+
+  @Test
+  public void intern() {
+    final String foo = "foo";
+    assertSame(foo, symbols.intern(foo));
+    assertSame(foo, symbols.intern(new String(foo)));
+    assertNull(symbols.intern(null));
+  }
+
+  @Test
+  public void id_concurrent() throws InterruptedException, ExecutionException {
+    final List<String> values = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      values.add("foo" + i);
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<int[]>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        final List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+          order.add(i);
+        }
+        Collections.shuffle(order, new Random(t));
+        futures.add(
+            executor.submit(
+                () -> {
+                  final int[] res = new int[values.size()];
+                  for (final int i : order) {
+                    res[i] = symbols.id(new String(values.get(i)));
+                  }
+                  return res;
+                }));
+      }
+      final int[] exp = futures.get(0).get();
+      for (final Future<int[]> future : futures) {
+        final int[] act = future.get();
+        for (int i = 0; i < values.size(); i++) {
+          assertEquals(exp[i], act[i]);
+          assertEquals(values.get(i), symbols.get(act[i]));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(values.size(), symbols.size());
+  }
+}
@@ -0,0 +1,49 @@
+package org.dita.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class WhitespaceNormalizerTest {
+
+  @Test
+  public void normalizeSpace() {
+    assertEquals("foo", WhitespaceNormalizer.normalizeSpace("foo"));
+    assertEquals("foo bar", WhitespaceNormalizer.normalizeSpace("  foo \n bar  "));
+    assertEquals("foo bar baz", WhitespaceNormalizer.normalizeSpace("foo\tbar\r\n\u000B\fbaz"));
+    assertEquals("foo\0A0bar", WhitespaceNormalizer.normalizeSpace("foo\0A0bar"));
+    assertEquals(
+        "\u00A0foo\u00A0bar", WhitespaceNormalizer.normalizeSpace(" \u00A0foo\u00A0bar "));
+    assertEquals("", WhitespaceNormalizer.normalizeSpace(" \t\n "));
+    assertNull(WhitespaceNormalizer.normalizeSpace(null));
+    assertEquals("", WhitespaceNormalizer.normalizeSpace(""));
+  }
+
+  @Test
+  public void normalizeSpace_normalized() {
+    final String value = "foo bar baz";
+    assertSame(value, WhitespaceNormalizer.normalizeSpace(value));
+  }
+
+  @Test
+  public void normalizeSpace_sameAsRegularExpression() {
+    final String[] values = {
+      "a", " a", "a ", "a  b", "a\nb", " \n a \t b \r\n", "a \u00A0 b", "\f\u000Ba\f\u000B"
+    };
+    for (final String value : values) {
+      assertEquals(
+          value.replaceAll("[\\s\\n]+", " ").trim(), WhitespaceNormalizer.normalizeSpace(value));
+    }
+  }
+
+  @Test
+  public void stripTrailing() {
+    assertEquals(" foo", WhitespaceNormalizer.stripTrailing(" foo \n\t"));
+    assertEquals("foo\u00A0", WhitespaceNormalizer.stripTrailing("foo\u00A0\r\n"));
+    assertEquals("", WhitespaceNormalizer.stripTrailing(" \n"));
+    final String value = " foo";
+    assertSame(value, WhitespaceNormalizer.stripTrailing(value));
+  }
+}
@@ -0,0 +1,75 @@
+package org.dita.index.configuration;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xml.sax.SAXException;
+
+public class IndexConfigurationCacheTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void get() throws ParseException, IOException, SAXException {
+    final IndexConfigurationCache cache = new IndexConfigurationCache(2);
+    final File file = copy("/index/en.xml", "en.xml");
+
+    final IndexConfiguration first = cache.get(file);
+    assertEquals(28, first.getEntries().size());
+    assertSame(first, cache.get(file));
+    assertSame(first, cache.get(new File(file.getParentFile(), "./en.xml")));
+  }
+
+  @Test
+  public void get_modified() throws ParseException, IOException, SAXException {
+    final IndexConfigurationCache cache = new IndexConfigurationCache(2);
+    final File file = copy("/index/en.xml", "en.xml");
+
+    final IndexConfiguration first = cache.get(file);
+    copy("/index/range.xml", "en.xml");
+    file.setLastModified(file.lastModified() + 2000);
+
+    final IndexConfiguration second = cache.get(file);
+    assertNotSame(first, second);
+    assertEquals(1, second.getEntries().size());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void get_evict() throws ParseException, IOException, SAXException {
+    final IndexConfigurationCache cache = new IndexConfigurationCache(2);
+    final File en = copy("/index/en.xml", "en.xml");
+    final File hu = copy("/index/hu.xml", "hu.xml");
+    final File range = copy("/index/range.xml", "range.xml");
+
+    final IndexConfiguration first = cache.get(en);
+    cache.get(hu);
+    cache.get(en);
+    cache.get(range);
+    assertEquals(2, cache.size());
+    assertSame(first, cache.get(en));
+    assertEquals(2, cache.size());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void getEntries_unmodifiable() throws ParseException, IOException, SAXException {
+    final IndexConfiguration configuration =
+        new IndexConfigurationCache(2).get(copy("/index/en.xml", "en.xml"));
+    configuration.getEntries().clear();
+  }
+
+  private File copy(final String resource, final String name) throws IOException {
+    final File file = new File(temporaryFolder.getRoot(), name);
+    try (InputStream in = getClass().getResourceAsStream(resource)) {
+      Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    return file;
+  }
+}
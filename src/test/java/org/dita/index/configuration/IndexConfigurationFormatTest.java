@@ -0,0 +1,89 @@
+package org.dita.index.configuration;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.dita.index.IndexCollator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xml.sax.SAXException;
+
+public class IndexConfigurationFormatTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final DocumentBuilder builder;
+
+  public IndexConfigurationFormatTest() throws ParserConfigurationException {
+    builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+  }
+
+  @Test
+  public void read() throws ParseException, IOException, SAXException {
+    final File file = copy("/index/en.xml");
+    final IndexConfiguration exp = IndexConfiguration.parse(builder.parse(file));
+
+    final IndexConfiguration act = IndexConfigurationFormat.read(file, write(exp, file));
+
+    assertEquals(exp.getEntries().size(), act.getEntries().size());
+    for (int i = 0; i < exp.getEntries().size(); i++) {
+      assertEquals(exp.getEntries().get(i).getKey(), act.getEntries().get(i).getKey());
+      assertEquals(exp.getEntries().get(i).getLabel(), act.getEntries().get(i).getLabel());
+      assertEquals(
+          exp.getEntries().get(i).getGroupMembers(), act.getEntries().get(i).getGroupMembers());
+    }
+  }
+
+  @Test
+  public void readRange() throws ParseException, IOException, SAXException {
+    final File file = copy("/index/range.xml");
+    final IndexConfiguration exp = IndexConfiguration.parse(builder.parse(file));
+
+    final IndexConfiguration act = IndexConfigurationFormat.read(file, write(exp, file));
+
+    final ConfigEntry range = act.getEntries().get(0);
+    assertFalse(range.isInRange("a", new IndexCollator(Locale.ENGLISH)));
+    assertTrue(range.isInRange("b", new IndexCollator(Locale.ENGLISH)));
+    assertTrue(range.isInRange("c", new IndexCollator(Locale.ENGLISH)));
+    assertFalse(range.isInRange("d", new IndexCollator(Locale.ENGLISH)));
+  }
+
+  @Test
+  public void read_modifiedSource() throws ParseException, IOException, SAXException {
+    final File file = copy("/index/en.xml");
+    final IndexConfiguration exp = IndexConfiguration.parse(builder.parse(file));
+    final InputStream binary = write(exp, file);
+    Files.write(file.toPath(), "<index.configuration.set/>".getBytes("UTF-8"));
+
+    assertNull(IndexConfigurationFormat.read(file, binary));
+  }
+
+  private File copy(final String resource) throws IOException {
+    final File file = temporaryFolder.newFile("config.xml");
+    try (InputStream in = getClass().getResourceAsStream(resource)) {
+      Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    return file;
+  }
+
+  private InputStream write(final IndexConfiguration configuration, final File source)
+      throws IOException {
+    final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(buf)) {
+      IndexConfigurationFormat.write(configuration, source, out);
+    }
+    return new ByteArrayInputStream(buf.toByteArray());
+  }
+}